@@ -0,0 +1,160 @@
+package org.showshortcuts.core;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.commands.Category;
+import org.eclipse.core.commands.Command;
+import org.eclipse.core.commands.CommandManager;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Compiles filter rules and matches commands of a plain command manager
+ * against them
+ *
+ * @author d031150
+ */
+public class CommandFilterTest {
+
+	private static final String SAVE = "org.eclipse.ui.file.save"; //$NON-NLS-1$
+	private static final String SAVE_ALL = "org.eclipse.ui.file.saveAll"; //$NON-NLS-1$
+	private static final String COPY = "org.eclipse.ui.edit.copy"; //$NON-NLS-1$
+	private static final String SPECIAL = "my.cmd(1)+[x]"; //$NON-NLS-1$
+	private static final String LOOK_ALIKE = "org-eclipse-ui-edit-copy"; //$NON-NLS-1$
+
+	private CommandManager commandManager;
+	private Category fileCategory;
+	private Category editCategory;
+	private int nextSymbol;
+
+	@Before
+	public void setUp() {
+		this.commandManager = new CommandManager();
+		this.fileCategory = this.commandManager.getCategory("org.eclipse.ui.category.file"); //$NON-NLS-1$
+		this.fileCategory.define("File", null); //$NON-NLS-1$
+		this.editCategory = this.commandManager.getCategory("org.eclipse.ui.category.edit"); //$NON-NLS-1$
+		this.editCategory.define("Edit", null); //$NON-NLS-1$
+		this.commandManager.getCommand(SAVE).define("Save", null, this.fileCategory); //$NON-NLS-1$
+		this.commandManager.getCommand(SAVE_ALL).define("Save All", null, this.fileCategory); //$NON-NLS-1$
+		this.commandManager.getCommand(COPY).define("Copy", null, this.editCategory); //$NON-NLS-1$
+		this.commandManager.getCommand(SPECIAL).define("Special", null, this.editCategory); //$NON-NLS-1$
+		this.commandManager.getCommand(LOOK_ALIKE).define("Look-alike", null, this.editCategory); //$NON-NLS-1$
+	}
+
+	@Test
+	public void unmatchedCommandsAreAccepted() {
+		CommandFilter filter = compile("-id:org.eclipse.ui.file.*"); //$NON-NLS-1$
+		assertFalse(accept(filter, SAVE));
+		assertTrue(accept(filter, COPY));
+		assertTrue(accept(CommandFilter.ACCEPT_ALL, SAVE));
+	}
+
+	@Test
+	public void lastMatchingRuleWins() {
+		CommandFilter filter = compile("-id:org.eclipse.*", "+id:" + SAVE); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue(accept(filter, SAVE));
+		assertFalse(accept(filter, COPY));
+
+		filter = compile("+id:" + SAVE, "-id:org.eclipse.*"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse(accept(filter, SAVE));
+
+		// across fields as well
+		filter = compile("+id:" + SAVE, "-category:org.eclipse.ui.category.file"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse(accept(filter, SAVE));
+		filter = compile("-category:org.eclipse.ui.category.file", "+id:" + SAVE); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue(accept(filter, SAVE));
+		assertFalse(accept(filter, SAVE_ALL));
+	}
+
+	@Test
+	public void trailingStarMatchesPrefixes() {
+		CommandFilter filter = compile("-id:org.eclipse.ui.file.save*"); //$NON-NLS-1$
+		assertFalse(accept(filter, SAVE));
+		assertFalse(accept(filter, SAVE_ALL));
+		assertTrue(accept(filter, COPY));
+	}
+
+	@Test
+	public void starInTheMiddleMatchesWholeIds() {
+		CommandFilter filter = compile("-id:org.eclipse.*.save"); //$NON-NLS-1$
+		assertFalse(accept(filter, SAVE));
+		assertTrue(accept(filter, SAVE_ALL));
+		assertTrue(accept(filter, COPY));
+
+		filter = compile("-id:org.eclipse.ui.???t.*"); //$NON-NLS-1$
+		assertFalse(accept(filter, COPY));
+		assertTrue(accept(filter, SAVE));
+	}
+
+	@Test
+	public void regexMetacharactersAreLiterals() {
+		assertFalse(accept(compile("-id:" + SPECIAL), SPECIAL)); //$NON-NLS-1$
+		assertFalse(accept(compile("-id:my.cmd(*)+[x]"), SPECIAL)); //$NON-NLS-1$
+		assertFalse(accept(compile("-id:my.cmd(1)+[x*]"), SPECIAL)); //$NON-NLS-1$
+		assertTrue(accept(compile("-id:my.cmd(1)+[y*]"), SPECIAL)); //$NON-NLS-1$
+		// the dot is no wildcard, neither in prefixes nor in globs
+		assertTrue(accept(compile("-id:org.eclipse.ui.edit.*"), LOOK_ALIKE)); //$NON-NLS-1$
+		assertTrue(accept(compile("-id:org.eclipse.*.copy"), LOOK_ALIKE)); //$NON-NLS-1$
+		assertFalse(accept(compile("-id:org?eclipse*copy"), LOOK_ALIKE)); //$NON-NLS-1$
+	}
+
+	@Test
+	public void keysMatchCaseInsensitively() {
+		CommandFilter filter = compile("-key:ctrl+s", "-key:alt+*"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue(filter.needsShortcut());
+		assertFalse(filter.acceptKey("CTRL+S")); //$NON-NLS-1$
+		assertFalse(filter.acceptKey("Alt+Shift+X")); //$NON-NLS-1$
+		assertTrue(filter.acceptKey("CTRL+SHIFT+S")); //$NON-NLS-1$
+		assertFalse(filter.accept(getCommand(COPY), 0, "CTRL+S")); //$NON-NLS-1$
+		assertTrue(filter.accept(getCommand(COPY), 0, null));
+		assertFalse(compile("-id:*").needsShortcut()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void resultsAreCachedUntilForgotten() {
+		CommandFilter filter = compile("-category:org.eclipse.ui.category.edit"); //$NON-NLS-1$
+		Command copy = getCommand(COPY);
+		assertFalse(filter.accept(copy, 3, null));
+
+		copy.define("Copy", null, this.fileCategory); //$NON-NLS-1$
+		assertFalse(filter.accept(copy, 3, null)); // memoized
+		filter.forget(3);
+		assertTrue(filter.accept(copy, 3, null));
+
+		copy.define("Copy", null, this.editCategory); //$NON-NLS-1$
+		filter.forget(CommandSymbols.NO_SYMBOL);
+		assertFalse(filter.accept(copy, 3, null));
+	}
+
+	@Test
+	public void newRulesStartWithAnEmptyCache() {
+		FilterStage stage = new FilterStage();
+		stage.setFilter(compile("-id:" + COPY)); //$NON-NLS-1$
+		assertFalse(stage.getFilter().accept(getCommand(COPY), 3, null));
+
+		stage.setFilter(compile("+id:" + COPY)); //$NON-NLS-1$
+		assertTrue(stage.getFilter().accept(getCommand(COPY), 3, null));
+	}
+
+	private CommandFilter compile(String... rules) {
+		List<CommandFilterRule> parsed = new ArrayList<CommandFilterRule>();
+		for (String rule : rules) {
+			parsed.add(CommandFilterRule.parse(rule));
+		}
+		return CommandFilter.compile(parsed);
+	}
+
+	private boolean accept(CommandFilter filter, String commandId) {
+		// a fresh symbol per call, so that nothing is memoized between the checks of a test
+		return filter.accept(getCommand(commandId), this.nextSymbol++, null);
+	}
+
+	private Command getCommand(String commandId) {
+		return this.commandManager.getCommand(commandId);
+	}
+
+}
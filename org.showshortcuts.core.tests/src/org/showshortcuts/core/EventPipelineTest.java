@@ -0,0 +1,256 @@
+package org.showshortcuts.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.eclipse.core.commands.Category;
+import org.eclipse.core.commands.Command;
+import org.eclipse.core.commands.CommandManager;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs events through the stages of the {@link EventPipeline} without a
+ * display, using a plain command manager and a formatter that just prints
+ * accelerators in hex
+ *
+ * @author d031150
+ */
+public class EventPipelineTest {
+
+	private static final String COMMAND_ID = "org.showshortcuts.test.save"; //$NON-NLS-1$
+	private static final int CTRL_S = (1 << 18) | 's';
+	private static final int CTRL_X = (1 << 18) | 'x';
+	private static final Executor SYNC_EXECUTOR = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	private final List<Runnable> pendingDrains = new ArrayList<Runnable>();
+	private final List<String> dispatched = new ArrayList<String>();
+	private int batches;
+
+	private CommandManager commandManager;
+	private ShortcutStatistics statistics;
+	private FilterStage filterStage;
+
+	@Before
+	public void setUp() {
+		this.commandManager = new CommandManager();
+		Category category = this.commandManager.getCategory("org.showshortcuts.test"); //$NON-NLS-1$
+		category.define("Test", null); //$NON-NLS-1$
+		this.commandManager.getCommand(COMMAND_ID).define("Save", "Saves the editor", category); //$NON-NLS-1$ //$NON-NLS-2$
+		this.statistics = new ShortcutStatistics();
+		this.filterStage = new FilterStage();
+	}
+
+	@Test
+	public void commandPassesAllStages() {
+		EventPipeline pipeline = createPipeline(SYNC_EXECUTOR, EventPipeline.DEFAULT_CAPACITY);
+
+		ShortcutEvent event = pipeline.claim();
+		event.setCommand(COMMAND_ID, CTRL_S);
+		pipeline.publish(event);
+
+		assertEquals(Collections.singletonList("40073:Save"), this.dispatched); //$NON-NLS-1$
+		assertEquals(1, this.batches);
+		assertEquals(1, this.statistics.snapshot().size);
+	}
+
+	@Test
+	public void filteredEventsAreCountedButNotDispatched() {
+		EventPipeline pipeline = createPipeline(SYNC_EXECUTOR, EventPipeline.DEFAULT_CAPACITY);
+		List<CommandFilterRule> rules = new ArrayList<CommandFilterRule>();
+		rules.add(CommandFilterRule.parse("-category:org.showshortcuts.*")); //$NON-NLS-1$
+		this.filterStage.setFilter(CommandFilter.compile(rules));
+
+		ShortcutEvent event = pipeline.claim();
+		event.setCommand(COMMAND_ID, CTRL_S);
+		pipeline.publish(event);
+
+		assertEquals(Collections.emptyList(), this.dispatched);
+		assertEquals(1, this.statistics.snapshot().size);
+	}
+
+	@Test
+	public void undefinedCommandsAreDropped() {
+		EventPipeline pipeline = createPipeline(SYNC_EXECUTOR, EventPipeline.DEFAULT_CAPACITY);
+
+		ShortcutEvent event = pipeline.claim();
+		event.setCommand("org.showshortcuts.test.undefined", CTRL_S); //$NON-NLS-1$
+		pipeline.publish(event);
+
+		assertEquals(Collections.emptyList(), this.dispatched);
+	}
+
+	@Test
+	public void sequencesAndKeysAreFormatted() {
+		EventPipeline pipeline = createPipeline(SYNC_EXECUTOR, EventPipeline.DEFAULT_CAPACITY);
+
+		ShortcutEvent event = pipeline.claim();
+		event.setCommand(COMMAND_ID, CTRL_S);
+		event.setSequence(new int[] { CTRL_X, CTRL_S }, 2);
+		pipeline.publish(event);
+		event = pipeline.claim();
+		event.setKey(CTRL_X);
+		pipeline.publish(event);
+
+		assertEquals(2, this.dispatched.size());
+		assertEquals("40078 40073:Save", this.dispatched.get(0)); //$NON-NLS-1$
+		assertEquals("40078:null", this.dispatched.get(1)); //$NON-NLS-1$
+	}
+
+	@Test
+	public void eventsAndTextsAreReused() {
+		EventPipeline pipeline = createPipeline(SYNC_EXECUTOR, 2);
+		final List<String> shortcuts = new ArrayList<String>();
+		pipeline.addSink(new EventSink() {
+			@Override
+			public void accept(ShortcutEvent event) {
+				shortcuts.add(event.getFormattedShortcut());
+			}
+
+			@Override
+			public void endOfBatch() {
+			}
+		});
+
+		List<ShortcutEvent> claimed = new ArrayList<ShortcutEvent>();
+		for (int i = 0; i < 4; i++) {
+			ShortcutEvent event = pipeline.claim();
+			claimed.add(event);
+			event.setCommand(COMMAND_ID, CTRL_S);
+			pipeline.publish(event);
+			assertNull(event.getCommandId()); // cleared after the drain
+		}
+
+		assertSame(claimed.get(0), claimed.get(2));
+		assertSame(claimed.get(1), claimed.get(3));
+		assertSame(shortcuts.get(0), shortcuts.get(3));
+	}
+
+	@Test
+	public void fullRingDropsEventsUntilDrained() {
+		EventPipeline pipeline = createPipeline(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				EventPipelineTest.this.pendingDrains.add(command);
+			}
+		}, 4);
+
+		for (int i = 0; i < 4; i++) {
+			ShortcutEvent event = pipeline.claim();
+			assertNotNull(event);
+			event.setKey(CTRL_X);
+			pipeline.publish(event);
+		}
+		assertNull(pipeline.claim());
+		assertEquals(1, pipeline.getDroppedCount());
+		assertEquals(1, this.pendingDrains.size());
+
+		this.pendingDrains.remove(0).run();
+		assertEquals(4, this.dispatched.size());
+		assertEquals(1, this.batches);
+		assertNotNull(pipeline.claim());
+	}
+
+	@Test
+	public void eventsAfterAFailingSinkAreDrainedAgain() {
+		EventPipeline pipeline = createPipeline(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				EventPipelineTest.this.pendingDrains.add(command);
+			}
+		}, 4);
+		pipeline.addSink(new EventSink() {
+			private boolean failed;
+
+			@Override
+			public void accept(ShortcutEvent event) {
+				if (!this.failed) {
+					this.failed = true;
+					throw new IllegalStateException();
+				}
+			}
+
+			@Override
+			public void endOfBatch() {
+			}
+		});
+
+		for (int i = 0; i < 2; i++) {
+			ShortcutEvent event = pipeline.claim();
+			event.setKey(CTRL_X);
+			pipeline.publish(event);
+		}
+		try {
+			this.pendingDrains.remove(0).run();
+		} catch (IllegalStateException e) {
+			// the first event failed
+		}
+		assertEquals(1, this.dispatched.size());
+		assertEquals(1, this.pendingDrains.size());
+
+		this.pendingDrains.remove(0).run();
+		assertEquals(2, this.dispatched.size());
+		assertEquals(0, this.pendingDrains.size());
+	}
+
+	private EventPipeline createPipeline(Executor executor, int capacity) {
+		CommandLookup lookup = new CommandLookup() {
+			@Override
+			public Command getCommand(String commandId) {
+				return EventPipelineTest.this.commandManager.getCommand(commandId);
+			}
+		};
+		EventPipeline pipeline = new EventPipeline(capacity, executor, new ResolveStage(new CommandSymbols(), lookup,
+				new HexFormatter()), new StatisticsStage(this.statistics), this.filterStage, new EnrichStage());
+		pipeline.addSink(new EventSink() {
+			@Override
+			public void accept(ShortcutEvent event) {
+				EventPipelineTest.this.dispatched.add(event.getFormattedShortcut() + ':' + event.getName());
+			}
+
+			@Override
+			public void endOfBatch() {
+				EventPipelineTest.this.batches++;
+			}
+		});
+		return pipeline;
+	}
+
+	private static final class HexFormatter implements ShortcutFormatter {
+
+		@Override
+		public String format(int accelerator, boolean formal) {
+			return Integer.toHexString(accelerator);
+		}
+
+		@Override
+		public String format(int[] accelerators, int count, boolean formal) {
+			StringBuilder result = new StringBuilder();
+			for (int i = 0; i < count; i++) {
+				if (i > 0) {
+					result.append(' ');
+				}
+				result.append(format(accelerators[i], formal));
+			}
+			return result.toString();
+		}
+
+		@Override
+		public String formatBinding(String commandId, boolean formal) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+package org.showshortcuts.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Writes, reads and merges history files in memory
+ *
+ * @author d031150
+ */
+public class HistoryMergerTest {
+
+	private static final String SAVE = "org.eclipse.ui.file.save"; //$NON-NLS-1$
+	private static final String COPY = "org.eclipse.ui.edit.copy"; //$NON-NLS-1$
+	private static final long T0 = 1400000000000L;
+
+	@Test
+	public void recordsAreReadBackWithTheirStrings() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		HistoryWriter writer = new HistoryWriter(bytes);
+		writer.write(T0, SAVE, "Ctrl+S", "Save", "Saves the editor"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		writer.write(T0 + 250, null, "Ctrl+Q", null, null); //$NON-NLS-1$
+		writer.write(T0 + 200, SAVE, "Ctrl+S", "Save", "Saves the editor"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		writer.close();
+		int sizeOfThree = bytes.size();
+
+		HistoryReader reader = read(bytes);
+		assertTrue(reader.next());
+		assertEquals(T0, reader.getTime());
+		assertEquals(SAVE, reader.getCommandId());
+		assertEquals("Ctrl+S", reader.getShortcut()); //$NON-NLS-1$
+		assertEquals("Save", reader.getName()); //$NON-NLS-1$
+		assertEquals("Saves the editor", reader.getDescription()); //$NON-NLS-1$
+		assertTrue(reader.next());
+		assertEquals(T0 + 250, reader.getTime());
+		assertNull(reader.getCommandId());
+		assertEquals("Ctrl+Q", reader.getShortcut()); //$NON-NLS-1$
+		assertNull(reader.getName());
+		assertTrue(reader.next());
+		assertEquals(T0 + 200, reader.getTime()); // clocks may go backwards
+		assertEquals(SAVE, reader.getCommandId());
+		assertFalse(reader.next());
+
+		// the repeated record only refers to the dictionary: one byte for the time, four for the strings
+		ByteArrayOutputStream once = new ByteArrayOutputStream();
+		writer = new HistoryWriter(once);
+		writer.write(T0, SAVE, "Ctrl+S", "Save", "Saves the editor"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		writer.write(T0 + 250, null, "Ctrl+Q", null, null); //$NON-NLS-1$
+		writer.close();
+		assertEquals(sizeOfThree - 5, once.size());
+	}
+
+	@Test(expected = IOException.class)
+	public void otherFilesAreRejected() throws IOException {
+		new HistoryReader(new ByteArrayInputStream(new byte[] { '#', ' ', 's', 'e', 's' }), "session.shortcuts"); //$NON-NLS-1$
+	}
+
+	@Test
+	public void filesAreMergedByTimeAndCounted() throws IOException {
+		ByteArrayOutputStream first = new ByteArrayOutputStream();
+		HistoryWriter writer = new HistoryWriter(first);
+		writer.write(T0, SAVE, "Ctrl+S", "Save", null); //$NON-NLS-1$ //$NON-NLS-2$
+		writer.write(T0 + 20, COPY, "Ctrl+C", "Copy", null); //$NON-NLS-1$ //$NON-NLS-2$
+		writer.write(T0 + 40, SAVE, "Ctrl+S", "Save", null); //$NON-NLS-1$ //$NON-NLS-2$
+		writer.close();
+		ByteArrayOutputStream second = new ByteArrayOutputStream();
+		writer = new HistoryWriter(second);
+		writer.write(T0 + 10, SAVE, "Ctrl+S", "Save", null); //$NON-NLS-1$ //$NON-NLS-2$
+		writer.write(T0 + 30, SAVE, "Cmd+S", "Save", null); //$NON-NLS-1$ //$NON-NLS-2$
+		writer.close();
+
+		List<HistoryReader> readers = new ArrayList<HistoryReader>();
+		readers.add(read(first));
+		readers.add(read(second));
+		ByteArrayOutputStream merged = new ByteArrayOutputStream();
+		HistoryWriter mergedWriter = new HistoryWriter(merged);
+		HistoryMerger merger = new HistoryMerger();
+		merger.merge(readers, mergedWriter);
+		mergedWriter.close();
+
+		HistoryReader reader = read(merged);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(reader.next());
+			assertEquals(T0 + 10 * i, reader.getTime());
+		}
+		assertFalse(reader.next());
+
+		assertEquals(5, merger.getRecordCount());
+		assertEquals(3, merger.getRowCount());
+		StringWriter counts = new StringWriter();
+		merger.writeCounts(counts);
+		String[] lines = counts.toString().split("\n"); //$NON-NLS-1$
+		assertEquals(3, lines.length);
+		assertEquals("3\t" + (T0 + 40) + '\t' + SAVE + "\tCtrl+S\tSave", lines[0]); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static HistoryReader read(ByteArrayOutputStream bytes) throws IOException {
+		return new HistoryReader(new ByteArrayInputStream(bytes.toByteArray()), "test.history"); //$NON-NLS-1$
+	}
+
+}
@@ -0,0 +1,344 @@
+package org.showshortcuts.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.commands.Command;
+import org.eclipse.core.commands.common.NotDefinedException;
+
+/**
+ * Compiled form of the include/exclude {@link CommandFilterRule rules}. Rules
+ * are evaluated in their order of definition, the last matching rule wins.
+ * Commands not matched by any rule are accepted.
+ * <p>
+ * Per field, all literal and prefix patterns are merged into one prefix trie,
+ * all remaining wildcard patterns into a single regular expression whose
+ * alternatives are ordered by priority. Results are memoized per command
+ * {@link CommandSymbols symbol} in a flat array and per key stroke in a map,
+ * so that a filter with many rules costs about one array or map lookup per
+ * event.
+ *
+ * @author d031150
+ */
+public final class CommandFilter {
+
+	public static final CommandFilter ACCEPT_ALL = compile(Collections.<CommandFilterRule> emptyList());
+
+	private static final int NO_MATCH = -1;
+	/** offset of the rules memoized in {@link #commandResults}, so that 0 means unknown */
+	private static final int RESULT_OFFSET = 2;
+
+	private final boolean[] includes;
+	private final FieldMatcher[] matchers = new FieldMatcher[CommandFilterRule.FIELD_COUNT];
+	/*
+	 * Written without locking: a result lost to a concurrent write or growth is
+	 * just computed again
+	 */
+	private volatile int[] commandResults = new int[0];
+	private final ConcurrentMap<String, Integer> keyResults = new ConcurrentHashMap<String, Integer>();
+
+	private CommandFilter(List<CommandFilterRule> rules) {
+		this.includes = new boolean[rules.size()];
+		for (int i = 0; i < this.includes.length; i++) {
+			this.includes[i] = rules.get(i).isInclude();
+		}
+		for (int field = 0; field < CommandFilterRule.FIELD_COUNT; field++) {
+			FieldMatcher matcher = FieldMatcher.compile(rules, field);
+			this.matchers[field] = matcher.isEmpty() ? null : matcher;
+		}
+	}
+
+	/**
+	 * Compiles the given rules into a filter
+	 *
+	 * @param rules
+	 *            the rules in their order of definition
+	 * @return the filter
+	 */
+	public static CommandFilter compile(List<CommandFilterRule> rules) {
+		return new CommandFilter(rules);
+	}
+
+	/**
+	 * Returns whether the filter contains rules on the key stroke. Callers may
+	 * skip computing the formal key stroke if not.
+	 *
+	 * @return <code>true</code> if there are key rules
+	 */
+	public boolean needsShortcut() {
+		return this.matchers[CommandFilterRule.FIELD_KEY] != null;
+	}
+
+	/**
+	 * Returns whether a popup shall be shown for the given command
+	 *
+	 * @param command
+	 *            the command, must not be <code>null</code>
+	 * @param symbol
+	 *            the {@link CommandSymbols symbol} of the command
+	 * @param formalShortcut
+	 *            the shortcut in formal notation, or <code>null</code>
+	 * @return <code>true</code> if the command passes the filter
+	 */
+	public boolean accept(Command command, int symbol, String formalShortcut) {
+		if (this.includes.length == 0) {
+			return true;
+		}
+
+		int rule = getCommandRule(command, symbol);
+		if (formalShortcut != null && needsShortcut()) {
+			rule = Math.max(rule, getKeyRule(formalShortcut));
+		}
+		return rule == NO_MATCH || this.includes[rule];
+	}
+
+	/**
+	 * Returns whether a popup shall be shown for a key that didn't trigger a
+	 * command. Only key rules apply.
+	 *
+	 * @param formalShortcut
+	 *            the shortcut in formal notation
+	 * @return <code>true</code> if the key passes the filter
+	 */
+	public boolean acceptKey(String formalShortcut) {
+		if (!needsShortcut()) {
+			return true;
+		}
+		int rule = getKeyRule(formalShortcut);
+		return rule == NO_MATCH || this.includes[rule];
+	}
+
+	private int getKeyRule(String formalShortcut) {
+		Integer keyRule = this.keyResults.get(formalShortcut);
+		if (keyRule == null) {
+			FieldMatcher keyMatcher = this.matchers[CommandFilterRule.FIELD_KEY];
+			keyRule = Integer.valueOf(keyMatcher.match(formalShortcut.toUpperCase(Locale.ENGLISH)));
+			this.keyResults.put(formalShortcut, keyRule);
+		}
+		return keyRule.intValue();
+	}
+
+	/**
+	 * Drops the memoized result of a command, e.g. because its category
+	 * changed
+	 *
+	 * @param symbol
+	 *            the symbol of the command, or {@link CommandSymbols#NO_SYMBOL}
+	 *            to drop all results
+	 */
+	public void forget(int symbol) {
+		int[] results = this.commandResults;
+		if (symbol == CommandSymbols.NO_SYMBOL) {
+			this.commandResults = new int[results.length];
+		} else if (symbol < results.length) {
+			results[symbol] = 0;
+		}
+	}
+
+	private int getCommandRule(Command command, int symbol) {
+		int[] results = this.commandResults;
+		int result = symbol < results.length ? results[symbol] : 0;
+		if (result == 0) {
+			String commandId = command.getId();
+			int rule = NO_MATCH;
+			FieldMatcher idMatcher = this.matchers[CommandFilterRule.FIELD_ID];
+			if (idMatcher != null) {
+				rule = idMatcher.match(commandId);
+			}
+			FieldMatcher categoryMatcher = this.matchers[CommandFilterRule.FIELD_CATEGORY];
+			if (categoryMatcher != null) {
+				String categoryId = getCategoryId(command);
+				if (categoryId != null) {
+					rule = Math.max(rule, categoryMatcher.match(categoryId));
+				}
+			}
+			result = rule + RESULT_OFFSET;
+			if (symbol >= results.length) {
+				int[] grown = new int[Math.max(symbol + 1, results.length * 2)];
+				System.arraycopy(results, 0, grown, 0, results.length);
+				results = grown;
+				this.commandResults = results;
+			}
+			results[symbol] = result;
+		}
+		return result - RESULT_OFFSET;
+	}
+
+	private static String getCategoryId(Command command) {
+		try {
+			return command.getCategory().getId();
+		} catch (NotDefinedException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * All patterns of one field. Literal and prefix patterns live in a trie
+	 * whose nodes carry the highest rule index ending there, all others are
+	 * merged into one alternation.
+	 */
+	private static final class FieldMatcher {
+
+		private final Node root = new Node();
+		private boolean empty = true;
+		private Pattern globs;
+		private int[] globRules;
+
+		static FieldMatcher compile(List<CommandFilterRule> rules, int field) {
+			FieldMatcher result = new FieldMatcher();
+			List<String> globPatterns = new ArrayList<String>();
+			List<Integer> globRules = new ArrayList<Integer>();
+
+			// reverse order, so that the alternation tries the highest priority first
+			for (int i = rules.size() - 1; i >= 0; i--) {
+				CommandFilterRule rule = rules.get(i);
+				if (rule.getField() != field) {
+					continue;
+				}
+				result.empty = false;
+				String pattern = rule.getPattern();
+				int star = pattern.indexOf('*');
+				boolean hasWildcard = star >= 0 || pattern.indexOf('?') >= 0;
+				if (!hasWildcard) {
+					Node node = result.root.insert(pattern);
+					node.exactRule = Math.max(node.exactRule, i);
+				} else if (star == pattern.length() - 1 && pattern.indexOf('?') < 0) {
+					Node node = result.root.insert(pattern.substring(0, star));
+					node.prefixRule = Math.max(node.prefixRule, i);
+				} else {
+					globPatterns.add(toRegex(pattern));
+					globRules.add(Integer.valueOf(i));
+				}
+			}
+
+			if (!globPatterns.isEmpty()) {
+				StringBuilder regex = new StringBuilder();
+				result.globRules = new int[globRules.size()];
+				for (int i = 0; i < globPatterns.size(); i++) {
+					if (i > 0) {
+						regex.append('|');
+					}
+					regex.append('(').append(globPatterns.get(i)).append(')');
+					result.globRules[i] = globRules.get(i).intValue();
+				}
+				result.globs = Pattern.compile(regex.toString());
+			}
+			return result;
+		}
+
+		private static String toRegex(String glob) {
+			StringBuilder regex = new StringBuilder();
+			int start = 0;
+			for (int i = 0; i < glob.length(); i++) {
+				char c = glob.charAt(i);
+				if (c == '*' || c == '?') {
+					if (i > start) {
+						regex.append(Pattern.quote(glob.substring(start, i)));
+					}
+					regex.append(c == '*' ? ".*" : "."); //$NON-NLS-1$ //$NON-NLS-2$
+					start = i + 1;
+				}
+			}
+			if (start < glob.length()) {
+				regex.append(Pattern.quote(glob.substring(start)));
+			}
+			return regex.toString();
+		}
+
+		boolean isEmpty() {
+			return this.empty;
+		}
+
+		int match(String value) {
+			Node node = this.root;
+			int best = node.prefixRule;
+			for (int i = 0; i < value.length() && node != null; i++) {
+				node = node.child(value.charAt(i));
+				if (node != null) {
+					best = Math.max(best, node.prefixRule);
+				}
+			}
+			if (node != null) {
+				best = Math.max(best, node.exactRule);
+			}
+
+			if (this.globs != null) {
+				Matcher matcher = this.globs.matcher(value);
+				if (matcher.matches()) {
+					for (int group = 1; group <= matcher.groupCount(); group++) {
+						if (matcher.start(group) >= 0) {
+							best = Math.max(best, this.globRules[group - 1]);
+							break;
+						}
+					}
+				}
+			}
+			return best;
+		}
+	}
+
+	private static final class Node {
+
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		int exactRule = NO_MATCH;
+		int prefixRule = NO_MATCH;
+
+		Node child(char c) {
+			int index = indexOf(c);
+			return index >= 0 ? this.children[index] : null;
+		}
+
+		Node insert(String path) {
+			Node node = this;
+			for (int i = 0; i < path.length(); i++) {
+				node = node.getOrCreateChild(path.charAt(i));
+			}
+			return node;
+		}
+
+		private Node getOrCreateChild(char c) {
+			int index = indexOf(c);
+			if (index >= 0) {
+				return this.children[index];
+			}
+			int insertAt = -(index + 1);
+			char[] newKeys = new char[this.keys.length + 1];
+			Node[] newChildren = new Node[this.children.length + 1];
+			System.arraycopy(this.keys, 0, newKeys, 0, insertAt);
+			System.arraycopy(this.children, 0, newChildren, 0, insertAt);
+			System.arraycopy(this.keys, insertAt, newKeys, insertAt + 1, this.keys.length - insertAt);
+			System.arraycopy(this.children, insertAt, newChildren, insertAt + 1, this.children.length - insertAt);
+			Node child = new Node();
+			newKeys[insertAt] = c;
+			newChildren[insertAt] = child;
+			this.keys = newKeys;
+			this.children = newChildren;
+			return child;
+		}
+
+		private int indexOf(char c) {
+			int low = 0;
+			int high = this.keys.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				char key = this.keys[mid];
+				if (key < c) {
+					low = mid + 1;
+				} else if (key > c) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -(low + 1);
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+package org.showshortcuts.core;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.showshortcuts.core.l10n.Messages;
+
+/**
+ * A single include or exclude rule of the command filter. Rules have the form
+ * <code>[+|-]field:pattern</code>, where <code>field</code> is one of
+ * <code>id</code>, <code>category</code> or <code>key</code> and
+ * <code>pattern</code> may contain <code>*</code> and <code>?</code>
+ * wildcards. Key patterns are matched case-insensitively against the formal
+ * key stroke notation, e.g. <code>-key:CTRL+S</code>.
+ *
+ * @author d031150
+ * @see CommandFilter
+ */
+public final class CommandFilterRule {
+
+	public static final int FIELD_ID = 0;
+	public static final int FIELD_CATEGORY = 1;
+	public static final int FIELD_KEY = 2;
+	static final int FIELD_COUNT = 3;
+
+	private static final String[] FIELD_NAMES = { "id", "category", "key" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	private static final String RULE_SEPARATOR = "\n"; //$NON-NLS-1$
+	private static final char COMMENT = '#';
+
+	private final boolean include;
+	private final int field;
+	private final String pattern;
+
+	private CommandFilterRule(boolean include, int field, String pattern) {
+		this.include = include;
+		this.field = field;
+		this.pattern = field == FIELD_KEY ? pattern.toUpperCase(Locale.ENGLISH) : pattern;
+	}
+
+	/**
+	 * Parses a single rule
+	 *
+	 * @param rule
+	 *            the rule text, e.g. <code>-id:org.eclipse.ui.edit.text.goto.*</code>
+	 * @return the rule
+	 * @throws IllegalArgumentException
+	 *             if the text is not a valid rule
+	 */
+	public static CommandFilterRule parse(String rule) {
+		String text = rule.trim();
+		if (text.length() < 2 || (text.charAt(0) != '+' && text.charAt(0) != '-')) {
+			throw new IllegalArgumentException(MessageFormat.format(Messages.FilterRule_invalidSign_xmsg, rule));
+		}
+		int colon = text.indexOf(':');
+		if (colon < 0) {
+			throw new IllegalArgumentException(MessageFormat.format(Messages.FilterRule_invalidField_xmsg, rule));
+		}
+		String fieldName = text.substring(1, colon).trim();
+		int field = -1;
+		for (int i = 0; i < FIELD_NAMES.length; i++) {
+			if (FIELD_NAMES[i].equalsIgnoreCase(fieldName)) {
+				field = i;
+			}
+		}
+		if (field < 0) {
+			throw new IllegalArgumentException(MessageFormat.format(Messages.FilterRule_invalidField_xmsg, rule));
+		}
+		String pattern = text.substring(colon + 1).trim();
+		if (pattern.length() == 0) {
+			throw new IllegalArgumentException(MessageFormat.format(Messages.FilterRule_emptyPattern_xmsg, rule));
+		}
+		return new CommandFilterRule(text.charAt(0) == '+', field, pattern);
+	}
+
+	/**
+	 * Parses the rules stored in the preference store. Empty lines and lines
+	 * starting with <code>#</code> are ignored, invalid rules are skipped.
+	 *
+	 * @param rules
+	 *            the rules separated by line breaks
+	 * @param errors
+	 *            receives the errors of invalid rules, e.g. to log them
+	 * @return the rules in their order of definition
+	 */
+	public static List<CommandFilterRule> parseAll(String rules, List<? super IllegalArgumentException> errors) {
+		String[] lines = split(rules);
+		List<CommandFilterRule> result = new ArrayList<CommandFilterRule>(lines.length);
+		for (String line : lines) {
+			try {
+				result.add(parse(line));
+			} catch (IllegalArgumentException e) {
+				errors.add(e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Splits the preference value into single rules, skipping blank lines and
+	 * comments
+	 *
+	 * @param rules
+	 *            the preference value
+	 * @return the rule lines
+	 */
+	public static String[] split(String rules) {
+		List<String> result = new ArrayList<String>();
+		if (rules != null) {
+			for (String line : rules.split("\r?\n")) { //$NON-NLS-1$
+				String trimmed = line.trim();
+				if (trimmed.length() > 0 && trimmed.charAt(0) != COMMENT) {
+					result.add(trimmed);
+				}
+			}
+		}
+		return result.toArray(new String[result.size()]);
+	}
+
+	/**
+	 * Joins single rules into a preference value
+	 *
+	 * @param rules
+	 *            the rule lines
+	 * @return the preference value
+	 */
+	public static String join(String[] rules) {
+		StringBuilder result = new StringBuilder();
+		for (String rule : rules) {
+			if (result.length() > 0) {
+				result.append(RULE_SEPARATOR);
+			}
+			result.append(rule);
+		}
+		return result.toString();
+	}
+
+	public boolean isInclude() {
+		return this.include;
+	}
+
+	public int getField() {
+		return this.field;
+	}
+
+	public String getPattern() {
+		return this.pattern;
+	}
+
+	@Override
+	public String toString() {
+		return (this.include ? '+' : '-') + FIELD_NAMES[this.field] + ':' + this.pattern;
+	}
+
+}
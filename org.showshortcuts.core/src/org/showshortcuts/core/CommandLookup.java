@@ -0,0 +1,20 @@
+package org.showshortcuts.core;
+
+import org.eclipse.core.commands.Command;
+
+/**
+ * Finds commands by id, e.g. in the workbench's command service or in a
+ * plain <code>CommandManager</code>
+ *
+ * @author d031150
+ */
+public interface CommandLookup {
+
+	/**
+	 * @param commandId
+	 *            the command id
+	 * @return the command, which may be undefined, never <code>null</code>
+	 */
+	Command getCommand(String commandId);
+
+}
@@ -0,0 +1,166 @@
+package org.showshortcuts.core;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.core.commands.CommandManager;
+import org.eclipse.core.commands.CommandManagerEvent;
+import org.eclipse.core.commands.ICommandManagerListener;
+
+/**
+ * Plug-in wide table of interned command ids. Each command id is mapped to a
+ * dense <code>int</code> symbol when it is first seen, so that per-command
+ * caches and counters can be flat arrays indexed by symbol instead of maps
+ * keyed by id. Symbols are never reused, not even for undefined commands, so
+ * arrays indexed by them stay valid.
+ * <p>
+ * Once {@link #connect(Collection, CommandManager) connected}, all defined commands are
+ * interned up front and listeners are told when a command is defined,
+ * undefined or otherwise changed, so that they can drop cached data for its
+ * symbol. Thread-safe.
+ *
+ * @author d031150
+ */
+public final class CommandSymbols implements ICommandManagerListener {
+
+	public static final int NO_SYMBOL = -1;
+
+	/**
+	 * Notified about changed commands
+	 */
+	public interface Listener {
+		/**
+		 * Called after a command was defined, undefined or changed
+		 *
+		 * @param symbol
+		 *            the symbol of the command, or {@link #NO_SYMBOL} if any
+		 *            command may have changed, e.g. because a category changed
+		 */
+		void symbolChanged(int symbol);
+	}
+
+	private final ConcurrentMap<String, Integer> symbols = new ConcurrentHashMap<String, Integer>(512);
+	private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+	private volatile String[] ids = new String[512];
+	private volatile int size;
+	private CommandManager commandManager;
+
+	/**
+	 * Returns the symbol of a command id, interning it if needed
+	 *
+	 * @param commandId
+	 *            the command id
+	 * @return the symbol
+	 */
+	public int intern(String commandId) {
+		Integer symbol = this.symbols.get(commandId);
+		if (symbol != null) {
+			return symbol.intValue();
+		}
+		synchronized (this) {
+			symbol = this.symbols.get(commandId);
+			if (symbol == null) {
+				int next = this.size;
+				String[] current = this.ids;
+				if (next == current.length) {
+					String[] grown = new String[current.length * 2];
+					System.arraycopy(current, 0, grown, 0, next);
+					current = grown;
+				}
+				current[next] = commandId;
+				this.ids = current;
+				this.size = next + 1;
+				symbol = Integer.valueOf(next);
+				this.symbols.put(commandId, symbol);
+			}
+			return symbol.intValue();
+		}
+	}
+
+	/**
+	 * Returns the symbol of a command id without interning it
+	 *
+	 * @param commandId
+	 *            the command id
+	 * @return the symbol or {@link #NO_SYMBOL} if the id wasn't interned yet
+	 */
+	public int get(String commandId) {
+		Integer symbol = this.symbols.get(commandId);
+		return symbol != null ? symbol.intValue() : NO_SYMBOL;
+	}
+
+	/**
+	 * Returns the command id of a symbol
+	 *
+	 * @param symbol
+	 *            the symbol
+	 * @return the command id
+	 */
+	public String getId(int symbol) {
+		return this.ids[symbol];
+	}
+
+	/**
+	 * Returns the number of symbols, which is one more than the highest symbol
+	 *
+	 * @return the number of symbols
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	public void addListener(Listener listener) {
+		this.listeners.addIfAbsent(listener);
+	}
+
+	public void removeListener(Listener listener) {
+		this.listeners.remove(listener);
+	}
+
+	/**
+	 * Interns all defined commands and starts listening to command changes
+	 *
+	 * @param definedCommandIds
+	 *            the ids of the defined commands
+	 * @param manager
+	 *            the command manager, or <code>null</code> if it is not
+	 *            accessible. Commands are only interned when first seen then.
+	 */
+	public void connect(Collection<?> definedCommandIds, CommandManager manager) {
+		for (Object commandId : definedCommandIds) {
+			intern((String) commandId);
+		}
+		if (manager != null) {
+			this.commandManager = manager;
+			this.commandManager.addCommandManagerListener(this);
+		}
+	}
+
+	/**
+	 * Stops listening to command changes
+	 */
+	public void disconnect() {
+		if (this.commandManager != null) {
+			this.commandManager.removeCommandManagerListener(this);
+			this.commandManager = null;
+		}
+	}
+
+	@Override
+	public void commandManagerChanged(CommandManagerEvent event) {
+		int symbol;
+		if (event.isCommandChanged()) {
+			symbol = intern(event.getCommandId());
+		} else if (event.isCategoryChanged()) {
+			symbol = NO_SYMBOL;
+		} else {
+			return;
+		}
+		for (Listener listener : this.listeners) {
+			listener.symbolChanged(symbol);
+		}
+	}
+
+}
@@ -0,0 +1,39 @@
+package org.showshortcuts.core;
+
+import org.eclipse.core.commands.Command;
+import org.eclipse.core.commands.common.NotDefinedException;
+
+/**
+ * Adds the name and, if enabled, the description of the command. Commands
+ * that are not defined are dropped. Both texts are held by the command
+ * itself, so nothing is allocated here.
+ *
+ * @author d031150
+ */
+public final class EnrichStage implements Stage {
+
+	private volatile boolean showDescription;
+
+	/**
+	 * @param show
+	 *            whether to add the description of commands
+	 */
+	public void setShowDescription(boolean show) {
+		this.showDescription = show;
+	}
+
+	@Override
+	public boolean process(ShortcutEvent event) {
+		if (event.getKind() != ShortcutEvent.KIND_COMMAND) {
+			return true;
+		}
+		Command command = event.getCommand();
+		try {
+			event.setText(command.getName(), this.showDescription ? command.getDescription() : null);
+			return true;
+		} catch (NotDefinedException e) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,219 @@
+package org.showshortcuts.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Staged, allocation-free hand-over of {@link ShortcutEvent}s from the threads
+ * that execute commands to a single draining thread, the UI thread in the
+ * IDE.
+ * <p>
+ * All events are preallocated in a ring. Producers on any thread
+ * {@link #claim() claim} a free slot with one CAS, fill it and
+ * {@link #publish(ShortcutEvent) publish} it. If none is pending yet, this
+ * schedules a single drain on the executor, which runs all events published
+ * so far through the {@link Stage stages}, typically resolve, filter and
+ * enrich, and dispatches those that pass to the {@link EventSink sinks} as
+ * one batch. Afterwards the slots are cleared and handed back to the
+ * producers. When the ring is full, events are dropped rather than blocking
+ * the producer.
+ * <p>
+ * Nothing depends on a display, so the pipeline can be run and measured in
+ * plain tests with a synchronous executor.
+ *
+ * @author d031150
+ */
+public final class EventPipeline {
+
+	public static final int DEFAULT_CAPACITY = 64;
+
+	private final ShortcutEvent[] slots;
+	/**
+	 * Per slot: the position a producer may claim it for, or that position
+	 * plus one once published
+	 */
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+	private final Executor executor;
+	private final Stage[] stages;
+	private final Runnable drain = new Runnable() {
+		@Override
+		public void run() {
+			drain();
+		}
+	};
+	private volatile EventSink[] sinks = new EventSink[0];
+	private volatile boolean disposed;
+	/** next position to drain, only accessed by the draining thread */
+	private long head;
+
+	/**
+	 * @param capacity
+	 *            the number of events in flight, rounded up to a power of two
+	 * @param executor
+	 *            runs the drains, e.g. on the UI thread
+	 * @param stages
+	 *            the stages in the order they run
+	 */
+	public EventPipeline(int capacity, Executor executor, Stage... stages) {
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		this.slots = new ShortcutEvent[size];
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			this.slots[i] = new ShortcutEvent();
+			this.sequences.set(i, i);
+		}
+		this.mask = size - 1;
+		this.executor = executor;
+		this.stages = stages.clone();
+	}
+
+	public synchronized void addSink(EventSink sink) {
+		EventSink[] current = this.sinks;
+		EventSink[] grown = new EventSink[current.length + 1];
+		System.arraycopy(current, 0, grown, 0, current.length);
+		grown[current.length] = sink;
+		this.sinks = grown;
+	}
+
+	public synchronized void removeSink(EventSink sink) {
+		EventSink[] current = this.sinks;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i] == sink) {
+				EventSink[] shrunk = new EventSink[current.length - 1];
+				System.arraycopy(current, 0, shrunk, 0, i);
+				System.arraycopy(current, i + 1, shrunk, i, shrunk.length - i);
+				this.sinks = shrunk;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Claims a free event. May be called from any thread. A claimed event
+	 * must always be {@link #publish(ShortcutEvent) published}, as later
+	 * events are not drained before it.
+	 *
+	 * @return the event to fill, or <code>null</code> if the ring is full or
+	 *         the pipeline disposed
+	 */
+	public ShortcutEvent claim() {
+		if (this.disposed) {
+			return null;
+		}
+		while (true) {
+			long position = this.tail.get();
+			int index = (int) position & this.mask;
+			long sequence = this.sequences.get(index);
+			if (sequence == position) {
+				if (this.tail.compareAndSet(position, position + 1)) {
+					ShortcutEvent event = this.slots[index];
+					event.position = position;
+					return event;
+				}
+			} else if (sequence < position) { // still in use by the previous round
+				this.dropped.incrementAndGet();
+				return null;
+			}
+			// otherwise another producer claimed the slot first, retry with the next one
+		}
+	}
+
+	/**
+	 * Hands a {@link #claim() claimed} event over to the draining thread
+	 *
+	 * @param event
+	 *            the event
+	 */
+	public void publish(ShortcutEvent event) {
+		long position = event.position;
+		// a volatile store, as the drain resets drainScheduled before it reads the sequence
+		this.sequences.set((int) position & this.mask, position + 1);
+		scheduleDrain();
+	}
+
+	private void scheduleDrain() {
+		if (!this.disposed && this.drainScheduled.compareAndSet(false, true)) {
+			try {
+				this.executor.execute(this.drain);
+			} catch (RuntimeException e) { // e.g. the display is gone, nothing to drain on
+				dispose();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of events dropped because the ring was full
+	 *
+	 * @return the number of events
+	 */
+	public long getDroppedCount() {
+		return this.dropped.get();
+	}
+
+	/**
+	 * Ignores all pending and further events
+	 */
+	public void dispose() {
+		this.disposed = true;
+	}
+
+	private void drain() {
+		// reset first, so that events published while draining schedule another drain
+		this.drainScheduled.set(false);
+		if (this.disposed) {
+			return;
+		}
+
+		long start = this.head;
+		long end = start;
+		EventSink[] currentSinks = this.sinks;
+		try {
+			while (end - start < this.slots.length) {
+				int index = (int) end & this.mask;
+				if (this.sequences.get(index) != end + 1) {
+					break; // not yet published
+				}
+				ShortcutEvent event = this.slots[index];
+				end++;
+				if (runStages(event)) {
+					for (EventSink sink : currentSinks) {
+						sink.accept(event);
+					}
+				}
+			}
+			if (end != start) {
+				for (EventSink sink : currentSinks) {
+					sink.endOfBatch();
+				}
+			}
+		} finally {
+			// release the batch even if a stage or sink failed, so that the ring doesn't stall
+			for (long position = start; position < end; position++) {
+				int index = (int) position & this.mask;
+				this.slots[index].clear();
+				this.sequences.lazySet(index, position + this.slots.length);
+			}
+			this.head = end;
+			// events left after a failure or a full batch don't wait for the next publish
+			if (this.sequences.get((int) end & this.mask) == end + 1) {
+				scheduleDrain();
+			}
+		}
+	}
+
+	private boolean runStages(ShortcutEvent event) {
+		for (Stage stage : this.stages) {
+			if (!stage.process(event)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,26 @@
+package org.showshortcuts.core;
+
+/**
+ * Receives the events that passed all {@link Stage stages} of the
+ * {@link EventPipeline}, e.g. to show them as popups. Called on the draining
+ * thread.
+ *
+ * @author d031150
+ */
+public interface EventSink {
+
+	/**
+	 * Receives an event that passed all stages
+	 *
+	 * @param event
+	 *            the event, only valid until {@link #endOfBatch()} returns
+	 */
+	void accept(ShortcutEvent event);
+
+	/**
+	 * Called after the last event of a batch. Sinks that only care about the
+	 * latest event, like popups, should do their work here.
+	 */
+	void endOfBatch();
+
+}
@@ -0,0 +1,60 @@
+package org.showshortcuts.core;
+
+/**
+ * Drops the events that are not to be shown: triggers of a disabled kind,
+ * shortcuts that could not be resolved, and whatever the
+ * {@link CommandFilter} rejects. The settings may be changed from any
+ * thread.
+ *
+ * @author d031150
+ */
+public final class FilterStage implements Stage {
+
+	private volatile CommandFilter filter = CommandFilter.ACCEPT_ALL;
+	private volatile boolean showKeyStrokes = true;
+	private volatile boolean showMouseTriggers;
+
+	public void setFilter(CommandFilter filter) {
+		this.filter = filter;
+	}
+
+	public CommandFilter getFilter() {
+		return this.filter;
+	}
+
+	/**
+	 * @param show
+	 *            whether to show commands triggered by key strokes and key
+	 *            sequences in progress
+	 */
+	public void setShowKeyStrokes(boolean show) {
+		this.showKeyStrokes = show;
+	}
+
+	/**
+	 * @param show
+	 *            whether to show commands triggered by the mouse
+	 */
+	public void setShowMouseTriggers(boolean show) {
+		this.showMouseTriggers = show;
+	}
+
+	@Override
+	public boolean process(ShortcutEvent event) {
+		switch (event.getKind()) {
+		case ShortcutEvent.KIND_COMMAND:
+			if (!(event.hasKey() ? this.showKeyStrokes : this.showMouseTriggers) || event.getFormattedShortcut() == null) {
+				return false;
+			}
+			return this.filter.accept(event.getCommand(), event.getSymbol(), event.getFormalShortcut());
+		case ShortcutEvent.KIND_PARTIAL_SEQUENCE:
+			return this.showKeyStrokes && this.filter.acceptKey(event.getFormalShortcut());
+		case ShortcutEvent.KIND_KEY:
+			// the classes of keys to show are chosen by the producer
+			return this.filter.acceptKey(event.getFormalShortcut());
+		default:
+			return true;
+		}
+	}
+
+}
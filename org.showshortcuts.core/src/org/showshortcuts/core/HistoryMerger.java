@@ -0,0 +1,380 @@
+package org.showshortcuts.core;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Combines the history files of many IDE instances. The files are merged by
+ * time with a k-way merge over a priority queue of readers, so only one
+ * record and one read buffer per file are held in memory, and the merged
+ * records may be written to a new history file. Along the way, the uses of
+ * each pair of command and shortcut are counted.
+ * <p>
+ * Strings are mapped to global ids once per dictionary entry of a file, and
+ * the counts are kept in an open addressing table, so merging allocates
+ * nothing per record.
+ * <p>
+ * Also runs from the command line, with nothing but this bundle's jar on the
+ * class path:
+ *
+ * <pre>
+ * java -jar org.showshortcuts.core.jar [-o merged.history] file-or-directory...
+ * </pre>
+ *
+ * The counts are printed as tab separated lines of count, time of last use,
+ * command id, shortcut and command name, most used first.
+ *
+ * @author d031150
+ */
+public final class HistoryMerger {
+
+	private static final String USAGE = "Usage: java -jar org.showshortcuts.core.jar [-o merged.history] file-or-directory..."; //$NON-NLS-1$
+	private static final long KEY_USED = 1L << 62;
+
+	private final Map<String, Integer> ids = new HashMap<String, Integer>();
+	private final List<String> strings = new ArrayList<String>();
+
+	private int size;
+	/** (command id + 1) << 32 | (shortcut id + 1) | KEY_USED by hash, 0 for empty slots */
+	private long[] keys = new long[256];
+	private int[] rowsBySlot = new int[256];
+	private int[] commands = new int[128];
+	private int[] shortcuts = new int[128];
+	private int[] names = new int[128];
+	private long[] counts = new long[128];
+	private long[] lastUsed = new long[128];
+	private long recordCount;
+
+	/**
+	 * Merges history files by time and counts their records. All readers are
+	 * closed afterwards.
+	 *
+	 * @param readers
+	 *            the files to merge
+	 * @param merged
+	 *            where to write the merged records, or <code>null</code> to
+	 *            only count them
+	 * @throws IOException
+	 *             if a file cannot be read or the merged file not written
+	 */
+	public void merge(List<HistoryReader> readers, HistoryWriter merged) throws IOException {
+		PriorityQueue<Cursor> queue = new PriorityQueue<Cursor>(Math.max(1, readers.size()), new Comparator<Cursor>() {
+			@Override
+			public int compare(Cursor c1, Cursor c2) {
+				long t1 = c1.reader.getTime();
+				long t2 = c2.reader.getTime();
+				if (t1 != t2) {
+					return t1 < t2 ? -1 : 1;
+				}
+				return c1.index - c2.index; // keep the order of the files for equal times
+			}
+		});
+		try {
+			for (int i = 0; i < readers.size(); i++) {
+				Cursor cursor = new Cursor(readers.get(i), i);
+				if (cursor.reader.next()) {
+					queue.add(cursor);
+				}
+			}
+			Cursor cursor;
+			while ((cursor = queue.poll()) != null) {
+				HistoryReader reader = cursor.reader;
+				count(cursor);
+				if (merged != null) {
+					merged.write(reader.getTime(), reader.getCommandId(), reader.getShortcut(), reader.getName(),
+							reader.getDescription());
+				}
+				if (reader.next()) {
+					queue.add(cursor);
+				}
+			}
+		} finally {
+			for (HistoryReader reader : readers) {
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of records merged so far
+	 */
+	public long getRecordCount() {
+		return this.recordCount;
+	}
+
+	/**
+	 * @return the number of distinct pairs of command and shortcut
+	 */
+	public int getRowCount() {
+		return this.size;
+	}
+
+	public String getCommandId(int row) {
+		return getString(this.commands[row]);
+	}
+
+	public String getShortcut(int row) {
+		return getString(this.shortcuts[row]);
+	}
+
+	/**
+	 * @return the name of the command as found in its first record
+	 */
+	public String getName(int row) {
+		return getString(this.names[row]);
+	}
+
+	public long getCount(int row) {
+		return this.counts[row];
+	}
+
+	public long getLastUsed(int row) {
+		return this.lastUsed[row];
+	}
+
+	/**
+	 * Writes the counts as tab separated lines, most used first
+	 *
+	 * @param out
+	 *            the writer
+	 * @throws IOException
+	 *             on write errors
+	 */
+	public void writeCounts(Writer out) throws IOException {
+		Integer[] order = new Integer[this.size];
+		for (int row = 0; row < order.length; row++) {
+			order[row] = Integer.valueOf(row);
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				long c1 = HistoryMerger.this.counts[o1.intValue()];
+				long c2 = HistoryMerger.this.counts[o2.intValue()];
+				return c1 > c2 ? -1 : c1 < c2 ? 1 : 0;
+			}
+		});
+		for (Integer row : order) {
+			int r = row.intValue();
+			out.write(Long.toString(this.counts[r]));
+			out.write('\t');
+			out.write(Long.toString(this.lastUsed[r]));
+			out.write('\t');
+			writeField(out, getCommandId(r));
+			out.write('\t');
+			writeField(out, getShortcut(r));
+			out.write('\t');
+			writeField(out, getName(r));
+			out.write('\n');
+		}
+	}
+
+	private static void writeField(Writer out, String text) throws IOException {
+		if (text != null) {
+			out.write(text.replace('\t', ' ').replace('\n', ' '));
+		}
+	}
+
+	private String getString(int id) {
+		return id >= 0 ? this.strings.get(id) : null;
+	}
+
+	private void count(Cursor cursor) {
+		HistoryReader reader = cursor.reader;
+		int command = cursor.globalId(reader.getRef(HistoryReader.FIELD_COMMAND_ID));
+		int shortcut = cursor.globalId(reader.getRef(HistoryReader.FIELD_SHORTCUT));
+		long key = (long) (command + 1) << 32 | (shortcut + 1) | KEY_USED;
+		int slot = find(key);
+		int row;
+		if (this.keys[slot] == 0) {
+			row = add(slot, key, command, shortcut, cursor.globalId(reader.getRef(HistoryReader.FIELD_NAME)));
+		} else {
+			row = this.rowsBySlot[slot];
+		}
+		this.counts[row]++;
+		this.lastUsed[row] = Math.max(this.lastUsed[row], reader.getTime());
+		this.recordCount++;
+	}
+
+	private int find(long key) {
+		int mask = this.keys.length - 1;
+		int slot = hash(key) & mask;
+		while (this.keys[slot] != 0 && this.keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private int add(int slot, long key, int command, int shortcut, int name) {
+		// keep the load factor at or below one half
+		if ((this.size + 1) * 2 > this.keys.length) {
+			long[] oldKeys = this.keys;
+			int[] oldRows = this.rowsBySlot;
+			this.keys = new long[oldKeys.length * 2];
+			this.rowsBySlot = new int[oldKeys.length * 2];
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != 0) {
+					int newSlot = find(oldKeys[i]);
+					this.keys[newSlot] = oldKeys[i];
+					this.rowsBySlot[newSlot] = oldRows[i];
+				}
+			}
+			slot = find(key);
+		}
+		int row = this.size++;
+		if (row == this.counts.length) {
+			int capacity = row * 2;
+			this.commands = Arrays.copyOf(this.commands, capacity);
+			this.shortcuts = Arrays.copyOf(this.shortcuts, capacity);
+			this.names = Arrays.copyOf(this.names, capacity);
+			this.counts = Arrays.copyOf(this.counts, capacity);
+			this.lastUsed = Arrays.copyOf(this.lastUsed, capacity);
+		}
+		this.keys[slot] = key;
+		this.rowsBySlot[slot] = row;
+		this.commands[row] = command;
+		this.shortcuts[row] = shortcut;
+		this.names[row] = name;
+		this.lastUsed[row] = Long.MIN_VALUE;
+		return row;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private int intern(String text) {
+		Integer id = this.ids.get(text);
+		if (id == null) {
+			id = Integer.valueOf(this.strings.size());
+			this.ids.put(text, id);
+			this.strings.add(text);
+		}
+		return id.intValue();
+	}
+
+	/**
+	 * A reader in the merge, with the global ids of its dictionary entries
+	 */
+	private final class Cursor {
+		final HistoryReader reader;
+		final int index;
+		private int[] globalIds = new int[64];
+		private int mapped;
+
+		Cursor(HistoryReader reader, int index) {
+			this.reader = reader;
+			this.index = index;
+		}
+
+		int globalId(int ref) {
+			if (ref < 0) {
+				return -1;
+			}
+			if (ref >= this.mapped) {
+				int dictionarySize = this.reader.getDictionarySize();
+				if (dictionarySize > this.globalIds.length) {
+					this.globalIds = Arrays.copyOf(this.globalIds, Math.max(dictionarySize, this.globalIds.length * 2));
+				}
+				for (; this.mapped < dictionarySize; this.mapped++) {
+					this.globalIds[this.mapped] = intern(this.reader.getEntry(this.mapped));
+				}
+			}
+			return this.globalIds[ref];
+		}
+	}
+
+	public static void main(String[] args) {
+		File output = null;
+		List<File> inputs = new ArrayList<File>();
+		for (int i = 0; i < args.length; i++) {
+			if ("-o".equals(args[i]) && i + 1 < args.length) { //$NON-NLS-1$
+				output = new File(args[++i]);
+			} else if (args[i].startsWith("-")) { //$NON-NLS-1$
+				System.err.println(USAGE);
+				System.exit(2);
+			} else {
+				addInputs(new File(args[i]), inputs);
+			}
+		}
+		if (inputs.isEmpty()) {
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		long start = System.nanoTime();
+		List<HistoryReader> readers = new ArrayList<HistoryReader>(inputs.size());
+		HistoryWriter merged = null;
+		boolean mergedComplete = false;
+		boolean failed = false;
+		HistoryMerger merger = new HistoryMerger();
+		try {
+			for (File input : inputs) {
+				readers.add(new HistoryReader(new FileInputStream(input), input.getPath()));
+			}
+			if (output != null) {
+				merged = new HistoryWriter(new BufferedOutputStream(new FileOutputStream(output), 64 * 1024));
+			}
+			merger.merge(readers, merged);
+			if (merged != null) {
+				merged.close();
+			}
+			mergedComplete = true;
+			Writer out = new BufferedWriter(new OutputStreamWriter(System.out, HistoryWriter.UTF_8));
+			merger.writeCounts(out);
+			out.flush();
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			failed = true;
+		} finally {
+			for (HistoryReader reader : readers) {
+				reader.close();
+			}
+			if (merged != null && !mergedComplete) {
+				try {
+					merged.close();
+				} catch (IOException e) {
+					// the merge failed already
+				}
+				output.delete(); // only the partial output of this run
+			}
+		}
+		if (failed) {
+			System.exit(1);
+		}
+		System.err.println(merger.getRecordCount() + " records from " + inputs.size() + " files merged in " //$NON-NLS-1$ //$NON-NLS-2$
+				+ (System.nanoTime() - start) / 1000000L + " ms"); //$NON-NLS-1$
+	}
+
+	private static void addInputs(File file, List<File> inputs) {
+		if (!file.isDirectory()) {
+			inputs.add(file);
+			return;
+		}
+		File[] children = file.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(HistoryWriter.FILE_EXTENSION);
+			}
+		});
+		if (children != null) {
+			Arrays.sort(children);
+			inputs.addAll(Arrays.asList(children));
+		}
+	}
+
+}
@@ -0,0 +1,224 @@
+package org.showshortcuts.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streams the records of a history file written by the {@link HistoryWriter}.
+ * Only the current record, the file's dictionary and a read buffer are held in
+ * memory. Reading a record allocates nothing but new dictionary entries.
+ *
+ * @author d031150
+ */
+public final class HistoryReader {
+
+	static final int FIELD_COMMAND_ID = 0;
+	static final int FIELD_SHORTCUT = 1;
+	static final int FIELD_NAME = 2;
+	static final int FIELD_DESCRIPTION = 3;
+	private static final int FIELD_COUNT = 4;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final InputStream in;
+	private final String source;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position;
+	private int limit;
+
+	private String[] dictionary = new String[64];
+	private int dictionarySize;
+	/** per field the dictionary index, or -1 */
+	private final int[] refs = new int[FIELD_COUNT];
+	private long time;
+
+	/**
+	 * Opens a history file
+	 *
+	 * @param in
+	 *            the stream to read from, closed by {@link #close()}
+	 * @param source
+	 *            the name of the file, for error messages
+	 * @throws IOException
+	 *             if the stream cannot be read or is no history file
+	 */
+	public HistoryReader(InputStream in, String source) throws IOException {
+		this.in = in;
+		this.source = source;
+		for (byte b : HistoryWriter.MAGIC) {
+			if (!fill(1) || this.buffer[this.position++] != b) {
+				throw new IOException(source + " is not a history file"); //$NON-NLS-1$
+			}
+		}
+		if (!fill(1) || this.buffer[this.position++] != HistoryWriter.VERSION) {
+			throw new IOException(source + " has an unsupported history version"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Advances to the next record
+	 *
+	 * @return <code>false</code> if the end of the file is reached
+	 * @throws IOException
+	 *             on read errors or if the file is truncated or malformed
+	 */
+	public boolean next() throws IOException {
+		if (!fill(1)) {
+			return false;
+		}
+		long zigzag = readVarLong();
+		this.time += (zigzag >>> 1) ^ -(zigzag & 1);
+		for (int field = 0; field < FIELD_COUNT; field++) {
+			this.refs[field] = readRef();
+		}
+		return true;
+	}
+
+	/**
+	 * @return the time of the current record in milliseconds since the epoch
+	 */
+	public long getTime() {
+		return this.time;
+	}
+
+	public String getCommandId() {
+		return getString(FIELD_COMMAND_ID);
+	}
+
+	public String getShortcut() {
+		return getString(FIELD_SHORTCUT);
+	}
+
+	public String getName() {
+		return getString(FIELD_NAME);
+	}
+
+	public String getDescription() {
+		return getString(FIELD_DESCRIPTION);
+	}
+
+	/**
+	 * Returns the dictionary index of a field of the current record. Indexes
+	 * are only meaningful within this file.
+	 *
+	 * @param field
+	 *            one of the <code>FIELD_*</code> constants
+	 * @return the index, or <code>-1</code> if the field is empty
+	 */
+	int getRef(int field) {
+		return this.refs[field];
+	}
+
+	/**
+	 * @return the number of dictionary entries read so far
+	 */
+	int getDictionarySize() {
+		return this.dictionarySize;
+	}
+
+	String getEntry(int index) {
+		return this.dictionary[index];
+	}
+
+	public void close() {
+		try {
+			this.in.close();
+		} catch (IOException e) {
+			// nothing left to read
+		}
+	}
+
+	private String getString(int field) {
+		int ref = this.refs[field];
+		return ref >= 0 ? this.dictionary[ref] : null;
+	}
+
+	private int readRef() throws IOException {
+		long ref = readVarLong();
+		if (ref == 0) {
+			return -1;
+		}
+		if (ref <= this.dictionarySize) {
+			return (int) ref - 1;
+		}
+		if (ref != this.dictionarySize + 1L) {
+			throw malformed();
+		}
+		long length = readVarLong();
+		if (length > Integer.MAX_VALUE) {
+			throw malformed();
+		}
+		String entry;
+		if (length <= this.buffer.length) {
+			if (!fill((int) length)) {
+				throw new EOFException(this.source);
+			}
+			entry = new String(this.buffer, this.position, (int) length, HistoryWriter.UTF_8);
+			this.position += (int) length;
+		} else {
+			entry = new String(readFully((int) length), HistoryWriter.UTF_8);
+		}
+		if (this.dictionarySize == this.dictionary.length) {
+			this.dictionary = Arrays.copyOf(this.dictionary, this.dictionarySize * 2);
+		}
+		this.dictionary[this.dictionarySize] = entry;
+		return this.dictionarySize++;
+	}
+
+	private long readVarLong() throws IOException {
+		long result = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			if (this.position == this.limit && !fill(1)) {
+				throw new EOFException(this.source);
+			}
+			int b = this.buffer[this.position++];
+			result |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw malformed();
+	}
+
+	private byte[] readFully(int length) throws IOException {
+		byte[] result = new byte[length];
+		int buffered = this.limit - this.position;
+		System.arraycopy(this.buffer, this.position, result, 0, buffered);
+		this.position = this.limit;
+		for (int read = buffered; read < length;) {
+			int count = this.in.read(result, read, length - read);
+			if (count < 0) {
+				throw new EOFException(this.source);
+			}
+			read += count;
+		}
+		return result;
+	}
+
+	/*
+	 * Makes sure that at least the given number of bytes are buffered
+	 */
+	private boolean fill(int count) throws IOException {
+		if (this.limit - this.position >= count) {
+			return true;
+		}
+		System.arraycopy(this.buffer, this.position, this.buffer, 0, this.limit - this.position);
+		this.limit -= this.position;
+		this.position = 0;
+		while (this.limit < count) {
+			int read = this.in.read(this.buffer, this.limit, this.buffer.length - this.limit);
+			if (read < 0) {
+				return false;
+			}
+			this.limit += read;
+		}
+		return true;
+	}
+
+	private IOException malformed() {
+		return new IOException(this.source + " is malformed"); //$NON-NLS-1$
+	}
+
+}
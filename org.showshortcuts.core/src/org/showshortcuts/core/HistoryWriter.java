@@ -0,0 +1,159 @@
+package org.showshortcuts.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes shortcut events to a history file in a compact binary format, to be
+ * read by the {@link HistoryReader} and combined across files by the
+ * {@link HistoryMerger}.
+ * <p>
+ * A file starts with the four bytes <code>SSHB</code> and a version byte,
+ * currently 1, followed by records without any framing:
+ *
+ * <pre>
+ * record  = time commandId shortcut name description
+ * time    = zigzag varint: milliseconds since the previous record, or since the epoch for the first one
+ * string  = varint ref
+ *           0         no string
+ *           1..n      entry ref - 1 of the file's dictionary of n strings
+ *           n + 1     new entry, followed by its length in bytes as varint and its UTF-8 bytes
+ * </pre>
+ *
+ * Varints store 7 bits per byte, least significant group first, with the high
+ * bit set on all but the last byte. Zigzag maps signed to unsigned values, so
+ * that a clock going backwards still costs a single byte. Each distinct
+ * string, typically the command ids and their texts, is stored once per file
+ * where it first occurs, so a record of a known shortcut typically takes
+ * between 5 and 8 bytes. The file can be written and read as a stream.
+ *
+ * @author d031150
+ */
+public final class HistoryWriter {
+
+	public static final String FILE_EXTENSION = ".history"; //$NON-NLS-1$
+
+	static final byte[] MAGIC = { 'S', 'S', 'H', 'B' };
+	static final int VERSION = 1;
+	static final Charset UTF_8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	private final OutputStream out;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position;
+	private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+	private long lastTime;
+
+	/**
+	 * Starts a history file
+	 *
+	 * @param out
+	 *            the stream to write to, closed by {@link #close()}
+	 * @throws IOException
+	 *             on write errors
+	 */
+	public HistoryWriter(OutputStream out) throws IOException {
+		this.out = out;
+		for (byte b : MAGIC) {
+			writeByte(b);
+		}
+		writeByte(VERSION);
+	}
+
+	/**
+	 * Appends a record. It is buffered until the next {@link #flush()}.
+	 *
+	 * @param time
+	 *            the time of the event in milliseconds since the epoch
+	 * @param commandId
+	 *            the id of the command, or <code>null</code> for keys without
+	 *            a command
+	 * @param shortcut
+	 *            the formatted shortcut, or <code>null</code>
+	 * @param name
+	 *            the command name, or <code>null</code>
+	 * @param description
+	 *            the command description, or <code>null</code>
+	 * @throws IOException
+	 *             on write errors
+	 */
+	public void write(long time, String commandId, String shortcut, String name, String description) throws IOException {
+		long delta = time - this.lastTime;
+		this.lastTime = time;
+		writeVarLong((delta << 1) ^ (delta >> 63));
+		writeString(commandId);
+		writeString(shortcut);
+		writeString(name);
+		writeString(description);
+	}
+
+	public void flush() throws IOException {
+		flushBuffer();
+		this.out.flush();
+	}
+
+	/**
+	 * Flushes and closes the file
+	 *
+	 * @throws IOException
+	 *             on write errors
+	 */
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			this.out.close();
+		}
+	}
+
+	private void writeString(String text) throws IOException {
+		if (text == null) {
+			writeVarLong(0);
+			return;
+		}
+		Integer index = this.dictionary.get(text);
+		if (index != null) {
+			writeVarLong(index.intValue() + 1);
+			return;
+		}
+		int size = this.dictionary.size();
+		this.dictionary.put(text, Integer.valueOf(size));
+		writeVarLong(size + 1L);
+		byte[] bytes = text.getBytes(UTF_8);
+		writeVarLong(bytes.length);
+		if (bytes.length > this.buffer.length - this.position) {
+			flushBuffer();
+		}
+		if (bytes.length > this.buffer.length) {
+			this.out.write(bytes);
+		} else {
+			System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+			this.position += bytes.length;
+		}
+	}
+
+	private void writeVarLong(long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		writeByte((int) value);
+	}
+
+	private void writeByte(int b) throws IOException {
+		if (this.position == this.buffer.length) {
+			flushBuffer();
+		}
+		this.buffer[this.position++] = (byte) b;
+	}
+
+	private void flushBuffer() throws IOException {
+		this.out.write(this.buffer, 0, this.position);
+		this.position = 0;
+	}
+
+}
@@ -0,0 +1,112 @@
+package org.showshortcuts.core;
+
+/**
+ * First stage of the {@link EventPipeline}: interns the command, looks it up
+ * and formats the shortcut in platform and formal notation.
+ * <p>
+ * Formatted key strokes are cached per accelerator in an open addressing
+ * table, so that repeated strokes neither call the formatter nor allocate.
+ * Key sequences and the bindings of mouse triggers are rare enough to be
+ * formatted each time. Must only be used on the draining thread.
+ *
+ * @author d031150
+ */
+public final class ResolveStage implements Stage {
+
+	private final CommandSymbols symbols;
+	private final CommandLookup commands;
+	private final ShortcutFormatter formatter;
+
+	private int size;
+	/** accelerator + 1 by hash, 0 for empty slots */
+	private int[] keys = new int[64];
+	private String[] formatted = new String[64];
+	private String[] formal = new String[64];
+
+	public ResolveStage(CommandSymbols symbols, CommandLookup commands, ShortcutFormatter formatter) {
+		this.symbols = symbols;
+		this.commands = commands;
+		this.formatter = formatter;
+	}
+
+	@Override
+	public boolean process(ShortcutEvent event) {
+		switch (event.getKind()) {
+		case ShortcutEvent.KIND_COMMAND:
+			String commandId = event.getCommandId();
+			event.setResolved(this.symbols.intern(commandId), this.commands.getCommand(commandId));
+			if (event.getStrokeCount() > 0) {
+				resolveSequence(event);
+			} else if (event.hasKey()) {
+				resolveStroke(event);
+			} else {
+				event.setShortcut(this.formatter.formatBinding(commandId, false), this.formatter.formatBinding(commandId, true));
+			}
+			return true;
+		case ShortcutEvent.KIND_KEY:
+			resolveStroke(event);
+			return true;
+		case ShortcutEvent.KIND_PARTIAL_SEQUENCE:
+			resolveSequence(event);
+			return true;
+		default:
+			return true; // replays are already formatted
+		}
+	}
+
+	private void resolveSequence(ShortcutEvent event) {
+		int[] strokes = event.getStrokes();
+		int count = event.getStrokeCount();
+		event.setShortcut(this.formatter.format(strokes, count, false), this.formatter.format(strokes, count, true));
+	}
+
+	private void resolveStroke(ShortcutEvent event) {
+		int accelerator = event.getAccelerator();
+		int slot = find(accelerator);
+		if (this.keys[slot] == 0) {
+			slot = add(slot, accelerator);
+		}
+		event.setShortcut(this.formatted[slot], this.formal[slot]);
+	}
+
+	private int find(int accelerator) {
+		int mask = this.keys.length - 1;
+		int slot = hash(accelerator) & mask;
+		while (this.keys[slot] != 0 && this.keys[slot] != accelerator + 1) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private int add(int slot, int accelerator) {
+		// keep the load factor at or below one half
+		if ((this.size + 1) * 2 > this.keys.length) {
+			int[] oldKeys = this.keys;
+			String[] oldFormatted = this.formatted;
+			String[] oldFormal = this.formal;
+			this.keys = new int[oldKeys.length * 2];
+			this.formatted = new String[oldKeys.length * 2];
+			this.formal = new String[oldKeys.length * 2];
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != 0) {
+					int newSlot = find(oldKeys[i] - 1);
+					this.keys[newSlot] = oldKeys[i];
+					this.formatted[newSlot] = oldFormatted[i];
+					this.formal[newSlot] = oldFormal[i];
+				}
+			}
+			slot = find(accelerator);
+		}
+		this.keys[slot] = accelerator + 1;
+		this.formatted[slot] = this.formatter.format(accelerator, false);
+		this.formal[slot] = this.formatter.format(accelerator, true);
+		this.size++;
+		return slot;
+	}
+
+	private static int hash(int accelerator) {
+		int h = accelerator * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+}
@@ -0,0 +1,256 @@
+package org.showshortcuts.core;
+
+import org.eclipse.core.commands.Command;
+
+/**
+ * A command execution or key press on its way through the
+ * {@link EventPipeline}. Events are pooled: producers
+ * {@link EventPipeline#claim() claim} an instance, fill it with one of the
+ * <code>set*</code> methods and {@link EventPipeline#publish(ShortcutEvent)
+ * publish} it. The {@link Stage stages} then add what they resolve. Once
+ * dispatched, the instance is cleared and reused, so stages and sinks must
+ * not keep references to it beyond the current batch.
+ *
+ * @author d031150
+ */
+public final class ShortcutEvent {
+
+	/** A command triggered by a key stroke, key sequence or mouse click */
+	public static final int KIND_COMMAND = 1;
+	/** A key that did not trigger a command, or modifier keys alone */
+	public static final int KIND_KEY = 2;
+	/** The prefix of a key sequence that is still being typed */
+	public static final int KIND_PARTIAL_SEQUENCE = 3;
+	/** A popup replayed from a recorded session, with all texts formatted */
+	public static final int KIND_REPLAY = 4;
+
+	/**
+	 * The key bits of an accelerator, the same as <code>SWT.KEY_MASK</code>,
+	 * as this bundle must not depend on SWT
+	 */
+	public static final int KEY_MASK = (1 << 24) + 0xFFFF;
+
+	/** the longest key sequence that is tracked */
+	public static final int MAX_STROKES = 8;
+
+	private int kind;
+	private String commandId;
+	private int accelerator;
+	private final int[] strokes = new int[MAX_STROKES];
+	private int strokeCount;
+	private long time;
+
+	private int symbol = CommandSymbols.NO_SYMBOL;
+	private Command command;
+	private String formattedShortcut;
+	private String formalShortcut;
+	private String name;
+	private String description;
+
+	long position;
+
+	/**
+	 * Describes an executed command
+	 *
+	 * @param commandId
+	 *            the executed command
+	 * @param accelerator
+	 *            the unmodified SWT accelerator of the trigger, e.g.
+	 *            <code>SWT.MOD1 | 'S'</code>. Mouse triggers only have
+	 *            modifier bits.
+	 */
+	public void setCommand(String commandId, int accelerator) {
+		this.kind = KIND_COMMAND;
+		this.commandId = commandId;
+		this.accelerator = accelerator;
+		this.time = System.currentTimeMillis();
+	}
+
+	/**
+	 * Describes a key that did not trigger a command
+	 *
+	 * @param accelerator
+	 *            the unmodified SWT accelerator, or just the modifier bits for
+	 *            modifier keys pressed on their own
+	 */
+	public void setKey(int accelerator) {
+		this.kind = KIND_KEY;
+		this.accelerator = accelerator;
+		this.time = System.currentTimeMillis();
+	}
+
+	/**
+	 * Describes the prefix of a key sequence still being typed
+	 *
+	 * @param accelerators
+	 *            the accelerators of the strokes typed so far
+	 * @param count
+	 *            the number of strokes, at most {@link #MAX_STROKES}
+	 */
+	public void setPartialSequence(int[] accelerators, int count) {
+		this.kind = KIND_PARTIAL_SEQUENCE;
+		setSequence(accelerators, count);
+		this.time = System.currentTimeMillis();
+	}
+
+	/**
+	 * Sets all strokes of the multi-stroke trigger of a
+	 * {@link #setCommand(String, int) command}, ending with the trigger
+	 *
+	 * @param accelerators
+	 *            the accelerators of the strokes
+	 * @param count
+	 *            the number of strokes, at most {@link #MAX_STROKES}
+	 */
+	public void setSequence(int[] accelerators, int count) {
+		System.arraycopy(accelerators, 0, this.strokes, 0, count);
+		this.strokeCount = count;
+		this.accelerator = accelerators[count - 1];
+	}
+
+	/**
+	 * Describes a popup replayed from a recorded session
+	 *
+	 * @param formattedShortcut
+	 *            the shortcut as shown originally
+	 * @param name
+	 *            the command name
+	 * @param description
+	 *            the command description or <code>null</code>
+	 */
+	public void setReplay(String formattedShortcut, String name, String description) {
+		this.kind = KIND_REPLAY;
+		this.formattedShortcut = formattedShortcut;
+		this.name = name;
+		this.description = description;
+		this.time = System.currentTimeMillis();
+	}
+
+	void clear() {
+		this.kind = 0;
+		this.commandId = null;
+		this.accelerator = 0;
+		this.strokeCount = 0;
+		this.time = 0;
+		this.symbol = CommandSymbols.NO_SYMBOL;
+		this.command = null;
+		this.formattedShortcut = null;
+		this.formalShortcut = null;
+		this.name = null;
+		this.description = null;
+	}
+
+	/**
+	 * @return one of the <code>KIND_*</code> constants
+	 */
+	public int getKind() {
+		return this.kind;
+	}
+
+	/**
+	 * @return the executed command, or <code>null</code> if this is not a
+	 *         {@link #KIND_COMMAND command}
+	 */
+	public String getCommandId() {
+		return this.commandId;
+	}
+
+	public int getAccelerator() {
+		return this.accelerator;
+	}
+
+	/**
+	 * @return whether the trigger has a natural key, i.e. it is no mouse
+	 *         trigger and no modifier key pressed alone
+	 */
+	public boolean hasKey() {
+		return (this.accelerator & KEY_MASK) != 0;
+	}
+
+	/**
+	 * @return the number of strokes of a multi-stroke trigger, or
+	 *         <code>0</code> for single strokes
+	 */
+	public int getStrokeCount() {
+		return this.strokeCount;
+	}
+
+	/**
+	 * @return the accelerators of the strokes, valid up to
+	 *         {@link #getStrokeCount()}. Must not be modified.
+	 */
+	public int[] getStrokes() {
+		return this.strokes;
+	}
+
+	public long getTime() {
+		return this.time;
+	}
+
+	/**
+	 * @return the {@link CommandSymbols symbol} of the command, as
+	 *         {@link ResolveStage resolved}
+	 */
+	public int getSymbol() {
+		return this.symbol;
+	}
+
+	/**
+	 * @return the command, as {@link ResolveStage resolved}
+	 */
+	public Command getCommand() {
+		return this.command;
+	}
+
+	void setResolved(int symbol, Command command) {
+		this.symbol = symbol;
+		this.command = command;
+	}
+
+	/**
+	 * @return the shortcut in platform notation, as {@link ResolveStage
+	 *         resolved} or replayed
+	 */
+	public String getFormattedShortcut() {
+		return this.formattedShortcut;
+	}
+
+	/**
+	 * @return the shortcut in the formal notation used by filter rules, as
+	 *         {@link ResolveStage resolved}
+	 */
+	public String getFormalShortcut() {
+		return this.formalShortcut;
+	}
+
+	void setShortcut(String formattedShortcut, String formalShortcut) {
+		this.formattedShortcut = formattedShortcut;
+		this.formalShortcut = formalShortcut;
+	}
+
+	/**
+	 * @return the command name, as {@link EnrichStage enriched} or replayed
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return the command description, as {@link EnrichStage enriched} or
+	 *         replayed, or <code>null</code>
+	 */
+	public String getDescription() {
+		return this.description;
+	}
+
+	void setText(String name, String description) {
+		this.name = name;
+		this.description = description;
+	}
+
+	@Override
+	public String toString() {
+		return this.kind + ":" + this.commandId + '@' + Integer.toHexString(this.accelerator); //$NON-NLS-1$
+	}
+
+}
@@ -0,0 +1,50 @@
+package org.showshortcuts.core;
+
+/**
+ * Turns SWT accelerators into text. Implemented on top of the key formatters
+ * of the UI, so that the core does not depend on SWT or JFace.
+ *
+ * @author d031150
+ * @see ResolveStage
+ */
+public interface ShortcutFormatter {
+
+	/**
+	 * Formats a single key stroke
+	 *
+	 * @param accelerator
+	 *            the accelerator, or just the modifier bits for modifier keys
+	 *            pressed on their own
+	 * @param formal
+	 *            <code>true</code> for the formal notation used by filter
+	 *            rules, <code>false</code> for the platform notation
+	 * @return the text
+	 */
+	String format(int accelerator, boolean formal);
+
+	/**
+	 * Formats a key sequence
+	 *
+	 * @param accelerators
+	 *            the accelerators of the strokes
+	 * @param count
+	 *            the number of strokes
+	 * @param formal
+	 *            <code>true</code> for the formal notation
+	 * @return the text
+	 */
+	String format(int[] accelerators, int count, boolean formal);
+
+	/**
+	 * Formats the best active binding of a command, used for commands
+	 * triggered by the mouse
+	 *
+	 * @param commandId
+	 *            the command
+	 * @param formal
+	 *            <code>true</code> for the formal notation
+	 * @return the text, or <code>null</code> if the command is not bound
+	 */
+	String formatBinding(String commandId, boolean formal);
+
+}
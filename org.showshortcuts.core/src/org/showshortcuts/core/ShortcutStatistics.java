@@ -0,0 +1,181 @@
+package org.showshortcuts.core;
+
+import java.util.Arrays;
+
+/**
+ * Counts the observed shortcuts per command and key. Each distinct pair of
+ * command {@link CommandSymbols symbol} and accelerator is a row, whose
+ * columns are kept in primitive arrays. Rows are found by an open addressing
+ * hash table, so that recording an event does not allocate unless a new row
+ * is added. Must only be used on the thread that drains the
+ * {@link EventPipeline}, use {@link #snapshot()} to hand the data to other
+ * threads.
+ *
+ * @author d031150
+ */
+public final class ShortcutStatistics {
+
+	public static final byte TRIGGER_KEYBOARD = 0;
+	public static final byte TRIGGER_MOUSE = 1;
+	public static final byte TRIGGER_KEY_WITHOUT_COMMAND = 2;
+
+	private static final int EMPTY = -1;
+
+	private int size;
+	private int[] symbols = new int[256];
+	private int[] accelerators = new int[256];
+	private byte[] triggers = new byte[256];
+	private long[] counts = new long[256];
+	private long[] lastUsed = new long[256];
+	/** row + 1 by hash of symbol and accelerator, 0 for empty slots */
+	private int[] table = new int[512];
+	private long modificationCount;
+
+	/**
+	 * Counts an observed event
+	 *
+	 * @param symbol
+	 *            the symbol of the command, or {@link CommandSymbols#NO_SYMBOL}
+	 *            for a key without command
+	 * @param accelerator
+	 *            the accelerator, without natural key for mouse triggers
+	 * @param trigger
+	 *            one of the <code>TRIGGER_*</code> constants
+	 * @param time
+	 *            the time of the event
+	 */
+	public void record(int symbol, int accelerator, byte trigger, long time) {
+		int row = findRow(symbol, accelerator);
+		if (row == EMPTY) {
+			row = addRow(symbol, accelerator, trigger);
+		}
+		this.counts[row]++;
+		this.lastUsed[row] = Math.max(this.lastUsed[row], time);
+		this.modificationCount++;
+	}
+
+	/**
+	 * Returns a counter that changes with each recorded event
+	 *
+	 * @return the counter
+	 */
+	public long getModificationCount() {
+		return this.modificationCount;
+	}
+
+	/**
+	 * Removes all rows
+	 */
+	public void clear() {
+		this.size = 0;
+		Arrays.fill(this.table, 0);
+		this.modificationCount++;
+	}
+
+	/**
+	 * Copies the rows for use on another thread
+	 *
+	 * @return the copy
+	 */
+	public Snapshot snapshot() {
+		Snapshot snapshot = new Snapshot(this.size);
+		System.arraycopy(this.symbols, 0, snapshot.symbols, 0, this.size);
+		System.arraycopy(this.accelerators, 0, snapshot.accelerators, 0, this.size);
+		System.arraycopy(this.triggers, 0, snapshot.triggers, 0, this.size);
+		System.arraycopy(this.counts, 0, snapshot.counts, 0, this.size);
+		System.arraycopy(this.lastUsed, 0, snapshot.lastUsed, 0, this.size);
+		return snapshot;
+	}
+
+	private int findRow(int symbol, int accelerator) {
+		int mask = this.table.length - 1;
+		for (int slot = hash(symbol, accelerator) & mask;; slot = (slot + 1) & mask) {
+			int entry = this.table[slot];
+			if (entry == 0) {
+				return EMPTY;
+			}
+			int row = entry - 1;
+			if (this.symbols[row] == symbol && this.accelerators[row] == accelerator) {
+				return row;
+			}
+		}
+	}
+
+	private int addRow(int symbol, int accelerator, byte trigger) {
+		if (this.size == this.symbols.length) {
+			int length = this.size * 2;
+			this.symbols = grow(this.symbols, length);
+			this.accelerators = grow(this.accelerators, length);
+			byte[] grownTriggers = new byte[length];
+			System.arraycopy(this.triggers, 0, grownTriggers, 0, this.size);
+			this.triggers = grownTriggers;
+			this.counts = grow(this.counts, length);
+			this.lastUsed = grow(this.lastUsed, length);
+		}
+		int row = this.size++;
+		this.symbols[row] = symbol;
+		this.accelerators[row] = accelerator;
+		this.triggers[row] = trigger;
+		this.counts[row] = 0;
+		this.lastUsed[row] = 0;
+
+		// keep the load factor at or below one half
+		if (this.size * 2 > this.table.length) {
+			this.table = new int[this.table.length * 2];
+			for (int i = 0; i < this.size; i++) {
+				insert(i);
+			}
+		} else {
+			insert(row);
+		}
+		return row;
+	}
+
+	private void insert(int row) {
+		int mask = this.table.length - 1;
+		int slot = hash(this.symbols[row], this.accelerators[row]) & mask;
+		while (this.table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		this.table[slot] = row + 1;
+	}
+
+	private static int hash(int symbol, int accelerator) {
+		int h = symbol * 0x9E3779B9 + accelerator;
+		return h ^ (h >>> 16);
+	}
+
+	private static int[] grow(int[] array, int length) {
+		int[] result = new int[length];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
+	}
+
+	private static long[] grow(long[] array, int length) {
+		long[] result = new long[length];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
+	}
+
+	/**
+	 * Immutable copy of the rows
+	 */
+	public static final class Snapshot {
+		public final int size;
+		public final int[] symbols;
+		public final int[] accelerators;
+		public final byte[] triggers;
+		public final long[] counts;
+		public final long[] lastUsed;
+
+		Snapshot(int size) {
+			this.size = size;
+			this.symbols = new int[size];
+			this.accelerators = new int[size];
+			this.triggers = new byte[size];
+			this.counts = new long[size];
+			this.lastUsed = new long[size];
+		}
+	}
+
+}
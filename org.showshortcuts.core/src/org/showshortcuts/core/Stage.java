@@ -0,0 +1,23 @@
+package org.showshortcuts.core;
+
+/**
+ * A step of the {@link EventPipeline}. Stages run one after the other on the
+ * draining thread, each one reading what the previous ones resolved. To keep
+ * the pipeline free of allocations, stages should cache whatever they compute
+ * for more than one event.
+ *
+ * @author d031150
+ */
+public interface Stage {
+
+	/**
+	 * Processes an event
+	 *
+	 * @param event
+	 *            the event, only valid during the call
+	 * @return <code>true</code> to pass the event on to the next stage,
+	 *         <code>false</code> to drop it
+	 */
+	boolean process(ShortcutEvent event);
+
+}
@@ -0,0 +1,34 @@
+package org.showshortcuts.core;
+
+/**
+ * Counts all commands and keys in the {@link ShortcutStatistics}, before any
+ * of them is filtered. Never drops an event.
+ *
+ * @author d031150
+ */
+public final class StatisticsStage implements Stage {
+
+	private final ShortcutStatistics statistics;
+
+	public StatisticsStage(ShortcutStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	@Override
+	public boolean process(ShortcutEvent event) {
+		switch (event.getKind()) {
+		case ShortcutEvent.KIND_COMMAND:
+			byte trigger = event.hasKey() ? ShortcutStatistics.TRIGGER_KEYBOARD : ShortcutStatistics.TRIGGER_MOUSE;
+			this.statistics.record(event.getSymbol(), event.getAccelerator(), trigger, event.getTime());
+			break;
+		case ShortcutEvent.KIND_KEY:
+			this.statistics.record(CommandSymbols.NO_SYMBOL, event.getAccelerator(), ShortcutStatistics.TRIGGER_KEY_WITHOUT_COMMAND,
+					event.getTime());
+			break;
+		default:
+			break; // partial sequences are counted once completed, replays were counted when recorded
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,20 @@
+package org.showshortcuts.core.l10n;
+
+import org.eclipse.osgi.util.NLS;
+
+public class Messages extends NLS {
+
+	private static final String BUNDLE_NAME = "org.showshortcuts.core.l10n.messages"; //$NON-NLS-1$
+
+	public static String FilterRule_emptyPattern_xmsg;
+	public static String FilterRule_invalidField_xmsg;
+	public static String FilterRule_invalidSign_xmsg;
+
+	static {
+		// initialize resource bundle
+		NLS.initializeMessages(BUNDLE_NAME, Messages.class);
+	}
+
+	private Messages() {
+	}
+}
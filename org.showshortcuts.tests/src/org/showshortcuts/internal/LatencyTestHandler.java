@@ -0,0 +1,18 @@
+package org.showshortcuts.internal;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+
+/**
+ * Does nothing, so that only the plug-in's own work is measured
+ *
+ * @author d031150
+ */
+public class LatencyTestHandler extends AbstractHandler {
+
+	@Override
+	public Object execute(ExecutionEvent event) {
+		return null;
+	}
+
+}
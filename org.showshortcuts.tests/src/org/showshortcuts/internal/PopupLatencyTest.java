@@ -0,0 +1,172 @@
+package org.showshortcuts.internal;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Drives real key events into the workbench and measures the time until the
+ * popup is visible, as well as the SWT handles left over afterwards. Fails if
+ * the thresholds in <code>latency-thresholds.properties</code> are exceeded.
+ * <p>
+ * Handles are counted as the number of shells plus, if the workbench was
+ * started with <code>org.eclipse.ui/trace/graphics</code>, the device objects
+ * tracked by SWT.
+ *
+ * @author d031150
+ */
+public class PopupLatencyTest {
+
+	private static final String ITERATIONS_PROPERTY = "showshortcuts.latency.iterations"; //$NON-NLS-1$
+	private static final int DEFAULT_ITERATIONS = 2000;
+	private static final int WARMUP_ITERATIONS = 50;
+	private static final long TIMEOUT_MILLIS = 5000;
+
+	private Display display;
+	private IWorkbenchWindow window;
+	private IPreferenceStore store;
+	private Properties thresholds;
+
+	@Before
+	public void setUp() throws IOException {
+		this.display = PlatformUI.getWorkbench().getDisplay();
+		this.window = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+		assertNotNull("No active workbench window", this.window); //$NON-NLS-1$
+
+		this.store = Activator.getDefault().getPreferenceStore();
+		this.store.setValue(ShortcutPreferenceInitializer.PREF_KEY_SHORTCUTS_ENABLED, true);
+		this.store.setValue(ShortcutPreferenceInitializer.PREF_KEY_FILTER_RULES, ""); //$NON-NLS-1$
+		// the test hides the popup itself
+		this.store.setValue(ShortcutPreferenceInitializer.PREF_KEY_TIME_TO_CLOSE, 60 * 1000);
+
+		this.thresholds = new Properties();
+		InputStream in = getClass().getResourceAsStream("latency-thresholds.properties"); //$NON-NLS-1$
+		try {
+			this.thresholds.load(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	@After
+	public void tearDown() {
+		this.store.setToDefault(ShortcutPreferenceInitializer.PREF_KEY_SHORTCUTS_ENABLED);
+		this.store.setToDefault(ShortcutPreferenceInitializer.PREF_KEY_FILTER_RULES);
+		this.store.setToDefault(ShortcutPreferenceInitializer.PREF_KEY_TIME_TO_CLOSE);
+	}
+
+	@Test
+	public void popupLatencyAndHandles() {
+		int iterations = Integer.getInteger(ITERATIONS_PROPERTY, DEFAULT_ITERATIONS).intValue();
+
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			measureOnce();
+		}
+		flushEvents();
+		int handlesBefore = countHandles();
+
+		long[] latencies = new long[iterations];
+		for (int i = 0; i < iterations; i++) {
+			latencies[i] = measureOnce();
+		}
+		flushEvents();
+		int leakedHandles = countHandles() - handlesBefore;
+
+		Arrays.sort(latencies);
+		long p50 = percentile(latencies, 0.5);
+		long p95 = percentile(latencies, 0.95);
+		String measured = MessageFormat.format("popup latency over {0} iterations: p50={1}ms, p95={2}ms, max={3}ms, leaked handles={4}", //$NON-NLS-1$
+				iterations, toMillis(p50), toMillis(p95), toMillis(latencies[latencies.length - 1]), leakedHandles);
+
+		long maxP95 = Long.parseLong(this.thresholds.getProperty("p95LatencyMillis")); //$NON-NLS-1$
+		int maxLeaked = Integer.parseInt(this.thresholds.getProperty("maxLeakedHandles")); //$NON-NLS-1$
+		assertTrue("p95 latency exceeds " + maxP95 + "ms, " + measured, toMillis(p95) <= maxP95); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue("More than " + maxLeaked + " handles leaked, " + measured, leakedHandles <= maxLeaked); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/*
+	 * Posts Ctrl+Shift+F9, bound to LatencyTestHandler, and waits until the popup shows up
+	 */
+	private long measureOnce() {
+		// the popup is reused, so the measured path is the common one of showing a hidden popup again
+		this.window.getShell().forceActive();
+		flushEvents();
+
+		long start = System.nanoTime();
+		postKey(SWT.KeyDown, SWT.MOD1);
+		postKey(SWT.KeyDown, SWT.MOD2);
+		postKey(SWT.KeyDown, SWT.F9);
+		postKey(SWT.KeyUp, SWT.F9);
+		postKey(SWT.KeyUp, SWT.MOD2);
+		postKey(SWT.KeyUp, SWT.MOD1);
+
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (!isPopupVisible()) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("Popup did not show up within " + TIMEOUT_MILLIS + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			this.display.readAndDispatch();
+		}
+		long latency = System.nanoTime() - start;
+
+		Activator.getDefault().getPopup(this.window).hide();
+		return latency;
+	}
+
+	private void postKey(int type, int keyCode) {
+		Event event = new Event();
+		event.type = type;
+		event.keyCode = keyCode;
+		assertTrue("Could not post key event", this.display.post(event)); //$NON-NLS-1$
+	}
+
+	private boolean isPopupVisible() {
+		ShortcutPopup popup = Activator.getDefault().getPopup(this.window);
+		if (popup == null) {
+			return false;
+		}
+		Shell shell = popup.getShell();
+		return shell != null && !shell.isDisposed() && shell.isVisible();
+	}
+
+	private int countHandles() {
+		int handles = this.display.getShells().length;
+		if (this.display.getDeviceData().tracking) {
+			handles += this.display.getDeviceData().objects.length;
+		}
+		return handles;
+	}
+
+	private void flushEvents() {
+		while (this.display.readAndDispatch()) {
+			// process all pending events
+		}
+	}
+
+	private static long percentile(long[] sorted, double percentile) {
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(0, index)];
+	}
+
+	private static long toMillis(long nanos) {
+		return nanos / 1000000;
+	}
+
+}
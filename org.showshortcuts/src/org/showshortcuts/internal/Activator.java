@@ -1,25 +1,37 @@
 package org.showshortcuts.internal;
 
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_FILTER_RULES;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_FREEZE_THRESHOLD;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_KEYS_CHORDS_ENABLED;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_KEYS_FUNCTION_KEYS_ENABLED;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_KEYS_MODIFIERS_ENABLED;
 import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_MOUSE_TRIGGER_ENABLED;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_PROFILER_ENABLED;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_RECORD_SESSION;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_RENDER_FRAMES;
 import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_SHORTCUTS_ENABLED;
 import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_SHOW_DESCRIPTION;
-import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_TIME_TO_CLOSE;
 
+import java.io.File;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.eclipse.core.commands.Command;
+import org.eclipse.core.commands.CommandManager;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
-import org.eclipse.core.commands.IExecutionListener;
+import org.eclipse.core.commands.IExecutionListenerWithChecks;
+import org.eclipse.core.commands.NotEnabledException;
 import org.eclipse.core.commands.NotHandledException;
 import org.eclipse.core.commands.common.NotDefinedException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
-import org.eclipse.jface.bindings.keys.KeyStroke;
 import org.eclipse.jface.bindings.keys.SWTKeySupport;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.util.IPropertyChangeListener;
@@ -27,33 +39,69 @@ import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.osgi.service.debug.DebugOptions;
 import org.eclipse.osgi.service.debug.DebugOptionsListener;
 import org.eclipse.osgi.service.debug.DebugTrace;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.ui.IStartup;
-import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.commands.ICommandService;
+import org.eclipse.ui.contexts.IContextService;
 import org.eclipse.ui.keys.IBindingService;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
+import org.showshortcuts.core.CommandFilter;
+import org.showshortcuts.core.CommandFilterRule;
+import org.showshortcuts.core.CommandLookup;
+import org.showshortcuts.core.CommandSymbols;
+import org.showshortcuts.core.EnrichStage;
+import org.showshortcuts.core.EventPipeline;
+import org.showshortcuts.core.FilterStage;
+import org.showshortcuts.core.ResolveStage;
+import org.showshortcuts.core.ShortcutEvent;
+import org.showshortcuts.core.ShortcutFormatter;
+import org.showshortcuts.core.ShortcutStatistics;
+import org.showshortcuts.core.StatisticsStage;
 
 /**
  * The activator class controls the plug-in life cycle
  */
 public class Activator extends AbstractUIPlugin //
-		implements IStartup, IExecutionListener, IPropertyChangeListener, DebugOptionsListener {
+		implements IStartup, IExecutionListenerWithChecks, IPropertyChangeListener, DebugOptionsListener, CommandSymbols.Listener {
 
 	// The plug-in ID
 	public static final String PLUGIN_ID = "org.showshortcuts"; //$NON-NLS-1$
 
 	private static final String DEBUG_PATH = "/debug"; //$NON-NLS-1$
 	private static final String DEBUG_PATH_FULL = PLUGIN_ID + DEBUG_PATH;
+	private static final String DEBUG_RESOURCES_PATH = DEBUG_PATH + "/resources"; //$NON-NLS-1$
+	private static final String DEBUG_RESOURCES_PATH_FULL = PLUGIN_ID + DEBUG_RESOURCES_PATH;
+	private static final String DEBUG_FREEZES_PATH = DEBUG_PATH + "/freezes"; //$NON-NLS-1$
+	private static final String DEBUG_FREEZES_PATH_FULL = PLUGIN_ID + DEBUG_FREEZES_PATH;
 
 	// The shared instance
 	private static Activator plugin;
 
-	private ShortcutPopup shorcutPopup;
+	private ShortcutPopupManager popupManager;
+	private PopupSink popupSink;
+	private EventPipeline pipeline;
+	private final FilterStage filterStage = new FilterStage();
+	private final EnrichStage enrichStage = new EnrichStage();
+	private KeyFilter keyFilter;
+	private KeySequenceTracker sequenceTracker;
+	private SessionRecorder sessionRecorder;
+	private FrameRecorder frameRecorder;
+	private final CommandSymbols commandSymbols = new CommandSymbols();
+	private final CommandProfiler commandProfiler = new CommandProfiler(this.commandSymbols);
+	private final ShortcutStatistics shortcutStatistics = new ShortcutStatistics();
+	private final KeyHeatmap keyHeatmap = new KeyHeatmap();
+	private volatile boolean profiling;
+	private FreezeWatchdog freezeWatchdog;
+	private CommandIndexer commandIndexer;
+	private final ResourceTracker resourceTracker = new ResourceTracker();
 
 	private static volatile DebugTrace debugTrace;
 	private static volatile boolean debug = false;
+	private static volatile boolean debugResources = false;
+	private static volatile boolean debugFreezes = false;
 
 	@Override
 	public void earlyStartup() {
@@ -77,6 +125,28 @@ public class Activator extends AbstractUIPlugin //
 		job.setSystem(true);
 		job.schedule();
 
+		Display display = getWorkbench().getDisplay();
+		ICommandService commandService = (ICommandService) getWorkbench().getService(ICommandService.class);
+		this.commandSymbols.connect(commandService.getDefinedCommandIds(), getCommandManager(commandService));
+		this.commandSymbols.addListener(this);
+		this.commandIndexer = new CommandIndexer(display, commandService, this.commandSymbols);
+		this.commandIndexer.start();
+		this.popupManager = new ShortcutPopupManager(getWorkbench());
+		this.popupSink = new PopupSink(this.popupManager, getPreferenceStore());
+		this.pipeline = createPipeline(display, commandService);
+		this.keyFilter = new KeyFilter(display, this.pipeline);
+		this.sequenceTracker = new KeySequenceTracker(display, this.pipeline,
+				(IBindingService) getWorkbench().getService(IBindingService.class),
+				(IContextService) getWorkbench().getService(IContextService.class));
+		updateCommandFilter();
+		updatePipelineSettings();
+		updateKeyFilter();
+		updateSequenceTracker();
+		updateSessionRecorder();
+		updateFrameRecorder();
+		this.profiling = getPreferenceStore().getBoolean(PREF_KEY_PROFILER_ENABLED);
+		this.freezeWatchdog = new FreezeWatchdog(display, getFreezeDirectory());
+		this.freezeWatchdog.setThreshold(getPreferenceStore().getInt(PREF_KEY_FREEZE_THRESHOLD));
 		getPreferenceStore().addPropertyChangeListener(plugin);
 
 		if (isEnabled()) {
@@ -85,9 +155,41 @@ public class Activator extends AbstractUIPlugin //
 		}
 	}
 
+	private EventPipeline createPipeline(final Display display, final ICommandService commandService) {
+		Executor uiExecutor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				display.asyncExec(command);
+			}
+		};
+		CommandLookup commands = new CommandLookup() {
+			@Override
+			public Command getCommand(String commandId) {
+				return commandService.getCommand(commandId);
+			}
+		};
+		ShortcutFormatter formatter = new WorkbenchShortcutFormatter(
+				(IBindingService) getWorkbench().getService(IBindingService.class));
+		EventPipeline result = new EventPipeline(EventPipeline.DEFAULT_CAPACITY, uiExecutor,
+				new ResolveStage(this.commandSymbols, commands, formatter), new StatisticsStage(this.shortcutStatistics),
+				this.filterStage, this.enrichStage);
+		result.addSink(this.popupSink);
+		result.addSink(this.keyHeatmap);
+		return result;
+	}
+
+	/*
+	 * The command manager is an internal of the command service
+	 */
+	private static CommandManager getCommandManager(ICommandService cmdService) {
+		Object manager = Reflection.forObject(cmdService).getFieldValue("commandManager", null); //$NON-NLS-1$
+		return manager instanceof CommandManager ? (CommandManager) manager : null;
+	}
+
 	private boolean isEnabled() {
 		IPreferenceStore store = getPreferenceStore();
-		return store.getBoolean(PREF_KEY_SHORTCUTS_ENABLED) || store.getBoolean(PREF_KEY_MOUSE_TRIGGER_ENABLED);
+		return store.getBoolean(PREF_KEY_SHORTCUTS_ENABLED) || store.getBoolean(PREF_KEY_MOUSE_TRIGGER_ENABLED)
+				|| store.getBoolean(PREF_KEY_PROFILER_ENABLED) || store.getInt(PREF_KEY_FREEZE_THRESHOLD) > 0;
 	}
 
 	@Override
@@ -99,20 +201,129 @@ public class Activator extends AbstractUIPlugin //
 			cmdService.removeExecutionListener(plugin);
 		}
 
-		closePopup();
+		this.commandIndexer.dispose();
+		this.commandSymbols.removeListener(this);
+		this.commandSymbols.disconnect();
+		this.pipeline.dispose();
+		this.freezeWatchdog.dispose();
+		setKeyFilterClasses(0);
+		setSequenceTracking(false);
+		this.popupManager.dispose();
+		Job.getJobManager().cancel(SessionPlayer.FAMILY);
+		if (this.sessionRecorder != null) {
+			this.sessionRecorder.close();
+		}
+		if (this.frameRecorder != null) {
+			this.frameRecorder.close();
+		}
+		this.resourceTracker.reportLeaks(null, "plug-in stop"); //$NON-NLS-1$
 
 		debugTrace = null;
 		debug = false;
+		debugResources = false;
+		debugFreezes = false;
 		plugin = null;
 
 		super.stop(context);
 	}
 
-	private void closePopup() {
-		if (this.shorcutPopup != null) {
-			this.shorcutPopup.close();
-			this.shorcutPopup = null;
-		}
+	/**
+	 * Returns the tracker for all native resources created by the plug-in
+	 *
+	 * @return the tracker
+	 */
+	public ResourceTracker getResourceTracker() {
+		return this.resourceTracker;
+	}
+
+	/**
+	 * Returns the pipeline of events to show as popups
+	 *
+	 * @return the pipeline
+	 */
+	public EventPipeline getPipeline() {
+		return this.pipeline;
+	}
+
+	/**
+	 * Returns the default directory of recorded sessions
+	 *
+	 * @return the directory
+	 */
+	public File getSessionDirectory() {
+		return getStateLocation().append("sessions").toFile(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the directory of the popup frames rendered for videos
+	 *
+	 * @return the directory
+	 */
+	public File getFrameDirectory() {
+		return getStateLocation().append("frames").toFile(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the directory of the stack samples taken during UI freezes
+	 *
+	 * @return the directory
+	 */
+	public File getFreezeDirectory() {
+		return getStateLocation().append("freezes").toFile(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the table of interned command ids
+	 *
+	 * @return the table
+	 */
+	public CommandSymbols getCommandSymbols() {
+		return this.commandSymbols;
+	}
+
+	/**
+	 * Returns the owner of the search index over all commands
+	 *
+	 * @return the indexer
+	 */
+	public CommandIndexer getCommandIndexer() {
+		return this.commandIndexer;
+	}
+
+	/**
+	 * Returns the statistics of the observed shortcuts. Must only be used on the
+	 * UI thread.
+	 *
+	 * @return the statistics
+	 */
+	public ShortcutStatistics getShortcutStatistics() {
+		return this.shortcutStatistics;
+	}
+
+	/**
+	 * Returns how often each key appeared in the shown shortcuts. Must only be
+	 * used on the UI thread.
+	 *
+	 * @return the heatmap
+	 */
+	public KeyHeatmap getKeyHeatmap() {
+		return this.keyHeatmap;
+	}
+
+	/**
+	 * Returns the profiler of command execution times
+	 *
+	 * @return the profiler
+	 */
+	public CommandProfiler getCommandProfiler() {
+		return this.commandProfiler;
+	}
+
+	/*
+	 * for tests
+	 */
+	ShortcutPopup getPopup(IWorkbenchWindow window) {
+		return this.popupManager.getPopup(window);
 	}
 
 	/**
@@ -124,8 +335,17 @@ public class Activator extends AbstractUIPlugin //
 		return plugin;
 	}
 
+	/*
+	 * May be called on any thread, so only capture the event here and leave all
+	 * the rest to the UI thread.
+	 */
 	@Override
 	public void preExecute(String commandId, ExecutionEvent event) {
+		if (this.profiling) {
+			this.commandProfiler.started(commandId);
+		}
+		this.freezeWatchdog.started(commandId);
+
 		Event trigger = getTrigger(commandId, event);
 		if (trigger == null) {
 			if (debug && debugTrace != null) {
@@ -134,90 +354,191 @@ public class Activator extends AbstractUIPlugin //
 			return;
 		}
 
-		closePopup();
-
-		String formattedShortcut = getFormattedShortcut(commandId, trigger);
-		if (formattedShortcut == null) {
+		int accelerator = SWTKeySupport.convertEventToUnmodifiedAccelerator(trigger);
+		ShortcutEvent shortcutEvent = this.pipeline.claim();
+		if (shortcutEvent == null) {
+			if (debug && debugTrace != null) {
+				debugTrace.trace(DEBUG_PATH, "Event pipeline full, dropped command " + commandId); //$NON-NLS-1$
+			}
 			return;
 		}
-
-		IWorkbench workbench = getWorkbench();
-		ICommandService cmdService = (ICommandService) workbench.getService(ICommandService.class);
-		Command command = cmdService.getCommand(commandId);
-		int timeToClose = getPreferenceStore().getInt(PREF_KEY_TIME_TO_CLOSE);
-
 		try {
-			String name = command.getName();
-			String description = null;
-			if (getPreferenceStore().getBoolean(PREF_KEY_SHOW_DESCRIPTION)) {
-				description = command.getDescription();
-			}
-			this.shorcutPopup = new ShortcutPopup(workbench.getActiveWorkbenchWindow().getShell(), timeToClose);
-			this.shorcutPopup.setShortcut(formattedShortcut, name, description);
-			this.shorcutPopup.open();
-		} catch (NotDefinedException e) {
-			if (debug && debugTrace != null) {
-				debugTrace.trace(DEBUG_PATH, e.getMessage(), e);
+			shortcutEvent.setCommand(commandId, accelerator);
+			if (Display.getCurrent() != null) { // the tracker is confined to the UI thread
+				this.sequenceTracker.takeCompletedSequence(commandId, accelerator, shortcutEvent);
 			}
+		} finally {
+			this.pipeline.publish(shortcutEvent); // an unpublished slot would stall the pipeline
 		}
 	}
 
-	private String getFormattedShortcut(String commandId, Event trigger) {
-		IPreferenceStore store = getPreferenceStore();
-
-		int accelerator = SWTKeySupport.convertEventToUnmodifiedAccelerator(trigger);
-		KeyStroke keyStroke = SWTKeySupport.convertAcceleratorToKeyStroke(accelerator);
-
-		if (KeyStroke.NO_KEY != keyStroke.getNaturalKey()) {
-			if (store.getBoolean(PREF_KEY_SHORTCUTS_ENABLED)) {
-				String formattedStroke = SWTKeySupport.getKeyFormatterForPlatform().format(keyStroke);
-				if (debug && debugTrace != null) {
-					debugTrace.trace(DEBUG_PATH, "Formatted stroke is: " + formattedStroke); //$NON-NLS-1$
-				}
-				return formattedStroke;
-			} else { // keystroke found, but we're disabled
-				return null;
-			}
-		}
+	@Override
+	public void postExecuteSuccess(String commandId, Object returnValue) {
+		executionFinished(commandId, true);
+	}
 
-		else if (store.getBoolean(PREF_KEY_MOUSE_TRIGGER_ENABLED)) {
-			IBindingService bindingService = (IBindingService) getWorkbench().getService(IBindingService.class);
-			return bindingService.getBestActiveBindingFormattedFor(commandId);
-		}
+	@Override
+	public void notHandled(String commandId, NotHandledException exception) {
+		executionFinished(commandId, false);
+	}
 
-		return null;
+	@Override
+	public void postExecuteFailure(String commandId, ExecutionException exception) {
+		executionFinished(commandId, true);
 	}
 
 	@Override
-	public void postExecuteSuccess(String commandId, Object returnValue) {
+	public void notDefined(String commandId, NotDefinedException exception) {
+		executionFinished(commandId, false);
 	}
 
 	@Override
-	public void notHandled(String commandId, NotHandledException exception) {
+	public void notEnabled(String commandId, NotEnabledException exception) {
+		executionFinished(commandId, false);
+	}
+
+	private void executionFinished(String commandId, boolean executed) {
+		if (this.profiling) {
+			this.commandProfiler.finished(commandId, executed);
+		}
+		this.freezeWatchdog.finished();
 	}
 
 	@Override
-	public void postExecuteFailure(String commandId, ExecutionException exception) {
+	public void symbolChanged(int symbol) {
+		this.filterStage.getFilter().forget(symbol);
 	}
 
 	@Override
 	public void propertyChange(PropertyChangeEvent event) {
 		String property = event.getProperty();
 		if (ShortcutPreferenceInitializer.PREF_KEY_SHORTCUTS_ENABLED.equals(property)
-				|| ShortcutPreferenceInitializer.PREF_KEY_MOUSE_TRIGGER_ENABLED.equals(property)) {
+				|| ShortcutPreferenceInitializer.PREF_KEY_MOUSE_TRIGGER_ENABLED.equals(property)
+				|| PREF_KEY_PROFILER_ENABLED.equals(property) || PREF_KEY_FREEZE_THRESHOLD.equals(property)) {
+			this.profiling = getPreferenceStore().getBoolean(PREF_KEY_PROFILER_ENABLED);
+			this.freezeWatchdog.setThreshold(getPreferenceStore().getInt(PREF_KEY_FREEZE_THRESHOLD));
+			updatePipelineSettings();
+			updateSequenceTracker();
 			ICommandService cmdService = (ICommandService) getWorkbench().getService(ICommandService.class);
 			if (isEnabled()) {
 				cmdService.addExecutionListener(plugin);
 			} else {
 				cmdService.removeExecutionListener(plugin);
 			}
+		} else if (PREF_KEY_FILTER_RULES.equals(property)) {
+			updateCommandFilter();
+		} else if (PREF_KEY_SHOW_DESCRIPTION.equals(property)) {
+			updatePipelineSettings();
+		} else if (PREF_KEY_KEYS_MODIFIERS_ENABLED.equals(property) || PREF_KEY_KEYS_CHORDS_ENABLED.equals(property)
+				|| PREF_KEY_KEYS_FUNCTION_KEYS_ENABLED.equals(property)) {
+			updateKeyFilter();
+		} else if (PREF_KEY_RECORD_SESSION.equals(property)) {
+			updateSessionRecorder();
+		} else if (PREF_KEY_RENDER_FRAMES.equals(property)) {
+			updateFrameRecorder();
+		}
+	}
+
+	/*
+	 * changes of the preference are notified on the UI thread, where the recorder is used
+	 */
+	private void updateSessionRecorder() {
+		boolean record = getPreferenceStore().getBoolean(PREF_KEY_RECORD_SESSION);
+		if (record && this.sessionRecorder == null) {
+			this.sessionRecorder = SessionRecorder.create(getSessionDirectory());
+		} else if (!record && this.sessionRecorder != null) {
+			this.sessionRecorder.close();
+			this.sessionRecorder = null;
 		}
+		this.popupSink.setSessionRecorder(this.sessionRecorder);
+	}
+
+	/*
+	 * changes of the preference are notified on the UI thread, where frames are rendered
+	 */
+	private void updateFrameRecorder() {
+		boolean render = getPreferenceStore().getBoolean(PREF_KEY_RENDER_FRAMES);
+		if (render && this.frameRecorder == null) {
+			this.frameRecorder = FrameRecorder.create(getFrameDirectory(), getWorkbench().getDisplay());
+		} else if (!render && this.frameRecorder != null) {
+			this.frameRecorder.close();
+			this.frameRecorder = null;
+		}
+		this.popupSink.setFrameRecorder(this.frameRecorder);
+	}
+
+	private void updateKeyFilter() {
+		IPreferenceStore store = getPreferenceStore();
+		int classes = 0;
+		if (store.getBoolean(PREF_KEY_KEYS_MODIFIERS_ENABLED)) {
+			classes |= KeyFilter.CLASS_MODIFIER;
+		}
+		if (store.getBoolean(PREF_KEY_KEYS_CHORDS_ENABLED)) {
+			classes |= KeyFilter.CLASS_CHORD;
+		}
+		if (store.getBoolean(PREF_KEY_KEYS_FUNCTION_KEYS_ENABLED)) {
+			classes |= KeyFilter.CLASS_FUNCTION_KEY;
+		}
+		setKeyFilterClasses(classes);
+	}
+
+	private void setKeyFilterClasses(final int classes) {
+		final KeyFilter filter = this.keyFilter;
+		Display display = getWorkbench().getDisplay();
+		if (filter == null || display.isDisposed()) {
+			return;
+		}
+		// filters can only be changed on the UI thread
+		display.asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				filter.setEnabledClasses(classes);
+			}
+		});
+	}
+
+	private void updateSequenceTracker() {
+		setSequenceTracking(getPreferenceStore().getBoolean(PREF_KEY_SHORTCUTS_ENABLED));
+	}
+
+	private void setSequenceTracking(final boolean enabled) {
+		final KeySequenceTracker tracker = this.sequenceTracker;
+		Display display = getWorkbench().getDisplay();
+		if (tracker == null || display.isDisposed()) {
+			return;
+		}
+		// filters can only be changed on the UI thread
+		display.asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				tracker.setEnabled(enabled);
+			}
+		});
+	}
+
+	private void updateCommandFilter() {
+		String rules = getPreferenceStore().getString(PREF_KEY_FILTER_RULES);
+		List<IllegalArgumentException> errors = new ArrayList<IllegalArgumentException>();
+		this.filterStage.setFilter(CommandFilter.compile(CommandFilterRule.parseAll(rules, errors)));
+		for (IllegalArgumentException e : errors) {
+			log(e);
+		}
+	}
+
+	private void updatePipelineSettings() {
+		IPreferenceStore store = getPreferenceStore();
+		this.filterStage.setShowKeyStrokes(store.getBoolean(PREF_KEY_SHORTCUTS_ENABLED));
+		this.filterStage.setShowMouseTriggers(store.getBoolean(PREF_KEY_MOUSE_TRIGGER_ENABLED));
+		this.enrichStage.setShowDescription(store.getBoolean(PREF_KEY_SHOW_DESCRIPTION));
 	}
 
 	@Override
 	public void optionsChanged(DebugOptions options) {
 		debugTrace = options.newDebugTrace(PLUGIN_ID);
 		debug = options.getBooleanOption(DEBUG_PATH_FULL, false);
+		debugResources = options.getBooleanOption(DEBUG_RESOURCES_PATH_FULL, false);
+		debugFreezes = options.getBooleanOption(DEBUG_FREEZES_PATH_FULL, false);
+		this.resourceTracker.setRecordAllocationSites(debugResources);
 	}
 
 	private Event getTrigger(String commandId, ExecutionEvent event) {
@@ -246,6 +567,26 @@ public class Activator extends AbstractUIPlugin //
 		return null;
 	}
 
+	static void traceResources(String message) {
+		if (debugResources && debugTrace != null) {
+			debugTrace.trace(DEBUG_RESOURCES_PATH, message);
+		}
+	}
+
+	static void traceFreezes(String message) {
+		if (debugFreezes && debugTrace != null) {
+			debugTrace.trace(DEBUG_FREEZES_PATH, message);
+		}
+	}
+
+	public static void log(IStatus status) {
+		if (plugin != null) {
+			plugin.getLog().log(status);
+		} else {
+			System.err.println(status);
+		}
+	}
+
 	public static void log(Throwable e) {
 		if (plugin != null) {
 			plugin.getLog().log(new Status(IStatus.ERROR, PLUGIN_ID, e.getMessage(), e));
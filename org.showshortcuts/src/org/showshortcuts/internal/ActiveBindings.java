@@ -0,0 +1,54 @@
+package org.showshortcuts.internal;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.commands.ParameterizedCommand;
+import org.eclipse.jface.bindings.Binding;
+import org.eclipse.jface.bindings.TriggerSequence;
+import org.eclipse.ui.keys.IBindingService;
+
+/**
+ * Selects the bindings currently in effect, i.e. those of the active scheme,
+ * contexts and platform that win over conflicting ones
+ *
+ * @author d031150
+ */
+public final class ActiveBindings {
+
+	private ActiveBindings() {
+	}
+
+	/**
+	 * Returns the active bindings. Must be called on the UI thread.
+	 * <p>
+	 * The bindings of all schemes, platforms and contexts are reduced to
+	 * those the binding service resolves their key sequence to. This costs a
+	 * lookup per binding, so callers should cache the result.
+	 *
+	 * @param bindingService
+	 *            the binding service
+	 * @return the bindings, at most one per trigger
+	 */
+	public static Binding[] get(IBindingService bindingService) {
+		Binding[] bindings = bindingService.getBindings();
+		Binding[] active = new Binding[bindings.length];
+		Set<TriggerSequence> seen = new HashSet<TriggerSequence>();
+		int count = 0;
+		for (Binding binding : bindings) {
+			ParameterizedCommand command = binding.getParameterizedCommand();
+			if (command == null) {
+				continue; // removes a binding
+			}
+			TriggerSequence trigger = binding.getTriggerSequence();
+			Binding match = bindingService.getPerfectMatch(trigger);
+			if (match != null && command.equals(match.getParameterizedCommand()) && seen.add(trigger)) {
+				active[count++] = binding;
+			}
+		}
+		Binding[] result = new Binding[count];
+		System.arraycopy(active, 0, result, 0, count);
+		return result;
+	}
+
+}
@@ -0,0 +1,181 @@
+package org.showshortcuts.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.bindings.Binding;
+import org.eclipse.jface.bindings.TriggerSequence;
+import org.eclipse.jface.bindings.keys.KeySequence;
+import org.eclipse.jface.bindings.keys.KeyStroke;
+import org.eclipse.jface.bindings.keys.SWTKeySupport;
+
+/**
+ * Prefix tree of the key sequences of multi-stroke bindings, with one edge
+ * per key stroke, labeled by its SWT accelerator. Bindings of a single stroke
+ * are left out, as they never leave a sequence in progress. The key sequences
+ * are also kept per command, to find the sequence completed by the trigger of
+ * an execution. Immutable once built.
+ *
+ * @author d031150
+ * @see KeySequenceTracker
+ */
+public final class BindingTrie {
+
+	public static final BindingTrie EMPTY = new BindingTrie();
+
+	private final Node root = new Node();
+	private final Map<String, List<KeyStroke[]>> sequencesByCommand = new HashMap<String, List<KeyStroke[]>>();
+
+	private BindingTrie() {
+	}
+
+	/**
+	 * Builds the tree of the given bindings
+	 *
+	 * @param bindings
+	 *            the {@link ActiveBindings active bindings}
+	 * @return the tree
+	 */
+	public static BindingTrie build(Binding[] bindings) {
+		BindingTrie trie = new BindingTrie();
+		for (Binding binding : bindings) {
+			TriggerSequence trigger = binding.getTriggerSequence();
+			if (!(trigger instanceof KeySequence)) {
+				continue;
+			}
+			KeyStroke[] strokes = ((KeySequence) trigger).getKeyStrokes();
+			if (strokes.length == 0) {
+				continue;
+			}
+			String commandId = binding.getParameterizedCommand().getId();
+			// single strokes as well, they make a multi-stroke binding ending with the same stroke ambiguous
+			List<KeyStroke[]> sequences = trie.sequencesByCommand.get(commandId);
+			if (sequences == null) {
+				sequences = new ArrayList<KeyStroke[]>(2);
+				trie.sequencesByCommand.put(commandId, sequences);
+			}
+			sequences.add(strokes);
+			if (strokes.length < 2) {
+				continue;
+			}
+			Node node = trie.root;
+			for (KeyStroke stroke : strokes) {
+				node = node.getOrCreateChild(SWTKeySupport.convertKeyStrokeToAccelerator(stroke));
+			}
+			node.commandId = commandId;
+		}
+		return trie;
+	}
+
+	public Node getRoot() {
+		return this.root;
+	}
+
+	/**
+	 * Returns the multi-stroke sequence a command was triggered by
+	 *
+	 * @param commandId
+	 *            the command
+	 * @param lastStroke
+	 *            the stroke that triggered it
+	 * @return the accelerators of the sequence, or <code>null</code> if no
+	 *         binding of the command or more than one ends with the stroke, or
+	 *         if it is a single stroke
+	 */
+	public int[] getSequence(String commandId, KeyStroke lastStroke) {
+		List<KeyStroke[]> sequences = this.sequencesByCommand.get(commandId);
+		if (sequences == null) {
+			return null;
+		}
+		KeyStroke[] found = null;
+		for (KeyStroke[] strokes : sequences) {
+			if (strokes[strokes.length - 1].equals(lastStroke)) {
+				if (found != null) {
+					return null;
+				}
+				found = strokes;
+			}
+		}
+		if (found == null || found.length < 2) {
+			return null;
+		}
+		int[] accelerators = new int[found.length];
+		for (int i = 0; i < found.length; i++) {
+			accelerators[i] = SWTKeySupport.convertKeyStrokeToAccelerator(found[i]);
+		}
+		return accelerators;
+	}
+
+	/**
+	 * A key sequence. Leaves complete a binding, inner nodes are prefixes.
+	 */
+	public static final class Node {
+
+		private int[] keys = new int[0];
+		private Node[] children = new Node[0];
+		String commandId;
+
+		/**
+		 * @param accelerator
+		 *            the accelerator of the next stroke
+		 * @return the node of the sequence extended by the stroke, or
+		 *         <code>null</code> if no binding starts with it
+		 */
+		public Node child(int accelerator) {
+			int index = indexOf(accelerator);
+			return index >= 0 ? this.children[index] : null;
+		}
+
+		public boolean isLeaf() {
+			return this.keys.length == 0;
+		}
+
+		/**
+		 * @return the command of the binding completed by this node, or
+		 *         <code>null</code> for prefixes
+		 */
+		public String getCommandId() {
+			return this.commandId;
+		}
+
+		Node getOrCreateChild(int accelerator) {
+			int index = indexOf(accelerator);
+			if (index >= 0) {
+				return this.children[index];
+			}
+			int insertAt = -(index + 1);
+			int[] newKeys = new int[this.keys.length + 1];
+			Node[] newChildren = new Node[this.children.length + 1];
+			System.arraycopy(this.keys, 0, newKeys, 0, insertAt);
+			System.arraycopy(this.children, 0, newChildren, 0, insertAt);
+			System.arraycopy(this.keys, insertAt, newKeys, insertAt + 1, this.keys.length - insertAt);
+			System.arraycopy(this.children, insertAt, newChildren, insertAt + 1, this.children.length - insertAt);
+			Node child = new Node();
+			newKeys[insertAt] = accelerator;
+			newChildren[insertAt] = child;
+			this.keys = newKeys;
+			this.children = newChildren;
+			return child;
+		}
+
+		private int indexOf(int accelerator) {
+			int low = 0;
+			int high = this.keys.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int key = this.keys[mid];
+				if (key < accelerator) {
+					low = mid + 1;
+				} else if (key > accelerator) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -(low + 1);
+		}
+	}
+
+}
@@ -0,0 +1,177 @@
+package org.showshortcuts.internal;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.Collator;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.eclipse.core.commands.Command;
+import org.eclipse.core.commands.ParameterizedCommand;
+import org.eclipse.core.commands.common.NotDefinedException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.bindings.Binding;
+import org.showshortcuts.internal.l10n.Messages;
+
+/**
+ * Exports key bindings to a cheat sheet file, grouped by command category.
+ * The bindings are turned into {@link Row rows} of plain texts on the UI
+ * thread, as the command manager is not thread-safe. The job only sorts them
+ * and streams the document to the file by a {@link CheatSheetWriter}. The
+ * format is chosen by the file extension. A canceled export deletes the
+ * partial file.
+ *
+ * @author d031150
+ */
+public final class CheatSheetExporter extends Job {
+
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+	private final Row[] rows;
+	private final File file;
+
+	/**
+	 * @param rows
+	 *            the rows to export, see {@link #createRows(Binding[])}
+	 * @param file
+	 *            the target file
+	 */
+	public CheatSheetExporter(Row[] rows, File file) {
+		super(MessageFormat.format(Messages.CheatSheetExporter_job_xmsg, file.getName()));
+		this.rows = rows;
+		this.file = file;
+		setUser(true);
+	}
+
+	/**
+	 * Reads the texts of bindings. Must be called on the UI thread.
+	 *
+	 * @param bindings
+	 *            the bindings to export, all with a command
+	 * @return the rows, in the order of the bindings
+	 */
+	public static Row[] createRows(Binding[] bindings) {
+		Row[] rows = new Row[bindings.length];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = new Row(bindings[i]);
+		}
+		return rows;
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		Row[] rows = this.rows;
+		monitor.beginTask(getName(), rows.length);
+		Writer out = null;
+		boolean complete = false;
+		try {
+			Arrays.sort(rows, new RowComparator());
+
+			out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.file), ENCODING));
+			CheatSheetWriter writer = CheatSheetWriter.forFileName(this.file.getName(), out);
+			writer.begin();
+			String category = null;
+			for (int i = 0; i < rows.length; i++) {
+				if (monitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				Row row = rows[i];
+				if (!row.category.equals(category)) {
+					if (category != null) {
+						writer.endCategory();
+					}
+					category = row.category;
+					writer.beginCategory(category);
+				}
+				writer.binding(row.trigger, row.name, row.description);
+				// release the row, so that only the unwritten rest is kept
+				rows[i] = null;
+				monitor.worked(1);
+			}
+			if (category != null) {
+				writer.endCategory();
+			}
+			writer.end();
+			complete = true;
+			return Status.OK_STATUS;
+		} catch (IOException e) {
+			return new Status(IStatus.ERROR, Activator.PLUGIN_ID, MessageFormat.format(Messages.CheatSheetExporter_failed_xmsg,
+					this.file.getAbsolutePath()), e);
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					complete = false;
+					Activator.log(e);
+				}
+			}
+			if (!complete) {
+				this.file.delete();
+			}
+			monitor.done();
+		}
+	}
+
+	/**
+	 * The texts of one binding
+	 */
+	public static final class Row {
+		final String category;
+		final String name;
+		final String description;
+		final String trigger;
+
+		Row(Binding binding) {
+			ParameterizedCommand command = binding.getParameterizedCommand();
+			this.category = getCategoryName(command.getCommand());
+			String commandName;
+			try {
+				commandName = command.getName();
+			} catch (NotDefinedException e) {
+				commandName = command.getId();
+			}
+			this.name = commandName;
+			this.description = getDescription(command.getCommand());
+			this.trigger = binding.getTriggerSequence().format();
+		}
+
+		private static String getDescription(Command command) {
+			try {
+				return command.getDescription();
+			} catch (NotDefinedException e) {
+				return null;
+			}
+		}
+
+		private static String getCategoryName(Command command) {
+			try {
+				return command.getCategory().getName();
+			} catch (NotDefinedException e) {
+				return Messages.CheatSheet_uncategorized_xtit;
+			}
+		}
+	}
+
+	private static final class RowComparator implements Comparator<Row> {
+		private final Collator collator = Collator.getInstance();
+
+		@Override
+		public int compare(Row r1, Row r2) {
+			int result = this.collator.compare(r1.category, r2.category);
+			if (result == 0) {
+				result = this.collator.compare(r1.name, r2.name);
+			}
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,288 @@
+package org.showshortcuts.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+import org.showshortcuts.internal.l10n.Messages;
+
+/**
+ * Writes a cheat sheet of key bindings as a stream of categories and their
+ * bindings, so that the document never has to be held in memory. Call
+ * {@link #begin()}, then for each category {@link #beginCategory(String)},
+ * {@link #binding(String, String, String)} per binding and
+ * {@link #endCategory()}, and finally {@link #end()}.
+ *
+ * @author d031150
+ */
+public abstract class CheatSheetWriter {
+
+	public static final String EXTENSION_HTML = "html"; //$NON-NLS-1$
+	public static final String EXTENSION_MARKDOWN = "md"; //$NON-NLS-1$
+	public static final String EXTENSION_CSV = "csv"; //$NON-NLS-1$
+
+	protected final Writer out;
+
+	protected CheatSheetWriter(Writer out) {
+		this.out = out;
+	}
+
+	/**
+	 * Creates a writer for the format denoted by a file name's extension
+	 *
+	 * @param fileName
+	 *            the file name, ending with <code>.html</code>,
+	 *            <code>.md</code> or <code>.csv</code>
+	 * @param out
+	 *            where to write to
+	 * @return the writer, HTML if the extension is unknown
+	 */
+	public static CheatSheetWriter forFileName(String fileName, Writer out) {
+		String lowerCase = fileName.toLowerCase(Locale.ENGLISH);
+		if (lowerCase.endsWith('.' + EXTENSION_MARKDOWN)) {
+			return new MarkdownWriter(out);
+		}
+		if (lowerCase.endsWith('.' + EXTENSION_CSV)) {
+			return new CsvWriter(out);
+		}
+		return new HtmlWriter(out);
+	}
+
+	public abstract void begin() throws IOException;
+
+	public abstract void beginCategory(String category) throws IOException;
+
+	/**
+	 * Writes one binding of the current category
+	 *
+	 * @param shortcut
+	 *            the formatted key sequence
+	 * @param name
+	 *            the command name
+	 * @param description
+	 *            the command description or <code>null</code>
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public abstract void binding(String shortcut, String name, String description) throws IOException;
+
+	public abstract void endCategory() throws IOException;
+
+	public abstract void end() throws IOException;
+
+	private static final class HtmlWriter extends CheatSheetWriter {
+
+		HtmlWriter(Writer out) {
+			super(out);
+		}
+
+		@Override
+		public void begin() throws IOException {
+			this.out.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>"); //$NON-NLS-1$
+			write(Messages.CheatSheet_title_xtit);
+			this.out.write("</title>\n</head>\n<body>\n<h1>"); //$NON-NLS-1$
+			write(Messages.CheatSheet_title_xtit);
+			this.out.write("</h1>\n"); //$NON-NLS-1$
+		}
+
+		@Override
+		public void beginCategory(String category) throws IOException {
+			this.out.write("<h2>"); //$NON-NLS-1$
+			write(category);
+			this.out.write("</h2>\n<table>\n<tr><th>"); //$NON-NLS-1$
+			write(Messages.CheatSheet_shortcut_xcol);
+			this.out.write("</th><th>"); //$NON-NLS-1$
+			write(Messages.CheatSheet_command_xcol);
+			this.out.write("</th><th>"); //$NON-NLS-1$
+			write(Messages.CheatSheet_description_xcol);
+			this.out.write("</th></tr>\n"); //$NON-NLS-1$
+		}
+
+		@Override
+		public void binding(String shortcut, String name, String description) throws IOException {
+			this.out.write("<tr><td><kbd>"); //$NON-NLS-1$
+			write(shortcut);
+			this.out.write("</kbd></td><td>"); //$NON-NLS-1$
+			write(name);
+			this.out.write("</td><td>"); //$NON-NLS-1$
+			write(description);
+			this.out.write("</td></tr>\n"); //$NON-NLS-1$
+		}
+
+		@Override
+		public void endCategory() throws IOException {
+			this.out.write("</table>\n"); //$NON-NLS-1$
+		}
+
+		@Override
+		public void end() throws IOException {
+			this.out.write("</body>\n</html>\n"); //$NON-NLS-1$
+		}
+
+		private void write(String text) throws IOException {
+			if (text == null) {
+				return;
+			}
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				switch (c) {
+				case '&':
+					this.out.write("&amp;"); //$NON-NLS-1$
+					break;
+				case '<':
+					this.out.write("&lt;"); //$NON-NLS-1$
+					break;
+				case '>':
+					this.out.write("&gt;"); //$NON-NLS-1$
+					break;
+				case '"':
+					this.out.write("&quot;"); //$NON-NLS-1$
+					break;
+				default:
+					this.out.write(c);
+				}
+			}
+		}
+	}
+
+	private static final class MarkdownWriter extends CheatSheetWriter {
+
+		MarkdownWriter(Writer out) {
+			super(out);
+		}
+
+		@Override
+		public void begin() throws IOException {
+			this.out.write("# "); //$NON-NLS-1$
+			write(Messages.CheatSheet_title_xtit);
+			this.out.write('\n');
+		}
+
+		@Override
+		public void beginCategory(String category) throws IOException {
+			this.out.write("\n## "); //$NON-NLS-1$
+			write(category);
+			this.out.write("\n\n| "); //$NON-NLS-1$
+			write(Messages.CheatSheet_shortcut_xcol);
+			this.out.write(" | "); //$NON-NLS-1$
+			write(Messages.CheatSheet_command_xcol);
+			this.out.write(" | "); //$NON-NLS-1$
+			write(Messages.CheatSheet_description_xcol);
+			this.out.write(" |\n| --- | --- | --- |\n"); //$NON-NLS-1$
+		}
+
+		@Override
+		public void binding(String shortcut, String name, String description) throws IOException {
+			this.out.write("| "); //$NON-NLS-1$
+			write(shortcut);
+			this.out.write(" | "); //$NON-NLS-1$
+			write(name);
+			this.out.write(" | "); //$NON-NLS-1$
+			write(description);
+			this.out.write(" |\n"); //$NON-NLS-1$
+		}
+
+		@Override
+		public void endCategory() throws IOException {
+			// tables end with the next blank line
+		}
+
+		@Override
+		public void end() throws IOException {
+			// nothing to close
+		}
+
+		private void write(String text) throws IOException {
+			if (text == null) {
+				return;
+			}
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (c == '|' || c == '\\' || c == '*' || c == '_' || c == '`') {
+					this.out.write('\\');
+					this.out.write(c);
+				} else if (c == '\n' || c == '\r') {
+					this.out.write(' ');
+				} else {
+					this.out.write(c);
+				}
+			}
+		}
+	}
+
+	/**
+	 * RFC 4180 CSV with the category as first column
+	 */
+	private static final class CsvWriter extends CheatSheetWriter {
+
+		private String category;
+
+		CsvWriter(Writer out) {
+			super(out);
+		}
+
+		@Override
+		public void begin() throws IOException {
+			write(Messages.CheatSheet_category_xcol);
+			this.out.write(',');
+			write(Messages.CheatSheet_shortcut_xcol);
+			this.out.write(',');
+			write(Messages.CheatSheet_command_xcol);
+			this.out.write(',');
+			write(Messages.CheatSheet_description_xcol);
+			this.out.write("\r\n"); //$NON-NLS-1$
+		}
+
+		@Override
+		public void beginCategory(String newCategory) throws IOException {
+			this.category = newCategory;
+		}
+
+		@Override
+		public void binding(String shortcut, String name, String description) throws IOException {
+			write(this.category);
+			this.out.write(',');
+			write(shortcut);
+			this.out.write(',');
+			write(name);
+			this.out.write(',');
+			write(description);
+			this.out.write("\r\n"); //$NON-NLS-1$
+		}
+
+		@Override
+		public void endCategory() throws IOException {
+			this.category = null;
+		}
+
+		@Override
+		public void end() throws IOException {
+			// nothing to close
+		}
+
+		private void write(String text) throws IOException {
+			if (text == null) {
+				return;
+			}
+			boolean quote = false;
+			for (int i = 0; i < text.length() && !quote; i++) {
+				char c = text.charAt(i);
+				quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+			}
+			if (!quote) {
+				this.out.write(text);
+				return;
+			}
+			this.out.write('"');
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (c == '"') {
+					this.out.write('"');
+				}
+				this.out.write(c);
+			}
+			this.out.write('"');
+		}
+	}
+
+}
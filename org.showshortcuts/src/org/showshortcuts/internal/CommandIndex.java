@@ -0,0 +1,259 @@
+package org.showshortcuts.internal;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Search index over the names and ids of commands, keyed by their
+ * {@link org.showshortcuts.core.CommandSymbols symbol}. The lower-cased text
+ * of each command is split into grams:
+ * <ul>
+ * <li>all trigrams, which answer queries of three or more characters by
+ * scanning the shortest posting list of the query's trigrams only</li>
+ * <li>the first one and two characters of each word, which answer shorter
+ * queries as word prefixes</li>
+ * </ul>
+ * Posting lists are sorted <code>int</code> arrays of symbols. Commands can
+ * be {@link #update(int, String, String) updated} one at a time. Not
+ * thread-safe.
+ *
+ * @author d031150
+ */
+public final class CommandIndex {
+
+	private static final int MIN_GRAM = 3;
+	private static final long PREFIX_FLAG = 1L << 62;
+	private static final char SEPARATOR = '\n';
+
+	private final Map<Long, Postings> postings = new HashMap<Long, Postings>(8192);
+	/** name and id per symbol, lower-cased and separated by a line break */
+	private String[] texts = new String[512];
+	private String[] names = new String[512];
+
+	/**
+	 * Adds, replaces or removes a command
+	 *
+	 * @param symbol
+	 *            the symbol of the command
+	 * @param id
+	 *            the command id
+	 * @param name
+	 *            the command name, <code>null</code> to remove the command
+	 */
+	public void update(int symbol, String id, String name) {
+		if (symbol >= this.texts.length) {
+			int length = Math.max(symbol + 1, this.texts.length * 2);
+			String[] grownTexts = new String[length];
+			String[] grownNames = new String[length];
+			System.arraycopy(this.texts, 0, grownTexts, 0, this.texts.length);
+			System.arraycopy(this.names, 0, grownNames, 0, this.names.length);
+			this.texts = grownTexts;
+			this.names = grownNames;
+		}
+
+		String oldText = this.texts[symbol];
+		String newText = name != null ? (name + SEPARATOR + id).toLowerCase(Locale.ENGLISH) : null;
+		if (oldText != null && oldText.equals(newText)) {
+			this.names[symbol] = name;
+			return;
+		}
+		if (oldText != null) {
+			for (Long gram : grams(oldText)) {
+				Postings list = this.postings.get(gram);
+				if (list != null) {
+					list.remove(symbol);
+				}
+			}
+		}
+		this.texts[symbol] = newText;
+		this.names[symbol] = name;
+		if (newText != null) {
+			for (Long gram : grams(newText)) {
+				Postings list = this.postings.get(gram);
+				if (list == null) {
+					list = new Postings();
+					this.postings.put(gram, list);
+				}
+				list.add(symbol);
+			}
+		}
+	}
+
+	/**
+	 * Returns the name of an indexed command
+	 *
+	 * @param symbol
+	 *            the symbol of the command
+	 * @return the name or <code>null</code> if the command isn't indexed
+	 */
+	public String getName(int symbol) {
+		return symbol < this.names.length ? this.names[symbol] : null;
+	}
+
+	/**
+	 * Finds the commands whose name or id contains the query. Commands whose
+	 * name starts with the query come first, then those with a word in the
+	 * name starting with it, then other matches in the name, and finally
+	 * matches in the id only. Within each group, shorter names come first.
+	 *
+	 * @param query
+	 *            the query
+	 * @param result
+	 *            receives the symbols of the best matches, as many as fit
+	 * @return the number of symbols written to <code>result</code>
+	 */
+	public int search(String query, int[] result) {
+		String q = query.trim().toLowerCase(Locale.ENGLISH);
+		if (q.length() == 0 || result.length == 0) {
+			return 0;
+		}
+
+		Postings candidates;
+		if (q.length() < MIN_GRAM) {
+			candidates = this.postings.get(Long.valueOf(prefixGram(q, q.length())));
+		} else {
+			candidates = null;
+			for (int i = 0; i + MIN_GRAM <= q.length(); i++) {
+				Postings list = this.postings.get(Long.valueOf(trigram(q, i)));
+				if (list == null) {
+					return 0;
+				}
+				if (candidates == null || list.size < candidates.size) {
+					candidates = list;
+				}
+			}
+		}
+		if (candidates == null) {
+			return 0;
+		}
+
+		// bounded insertion sort by rank, as the candidates can be the whole registry
+		long[] ranks = new long[result.length];
+		int count = 0;
+		for (int i = 0; i < candidates.size; i++) {
+			int symbol = candidates.symbols[i];
+			String text = this.texts[symbol];
+			int index = text.indexOf(q);
+			if (index < 0) {
+				continue;
+			}
+			long rank = ((long) getMatchClass(text, q, index) << 32) | (text.indexOf(SEPARATOR) & 0xFFFFFFFFL);
+			if (count == result.length && rank >= ranks[count - 1]) {
+				continue;
+			}
+			int insertAt = count == result.length ? count - 1 : count++;
+			while (insertAt > 0 && ranks[insertAt - 1] > rank) {
+				ranks[insertAt] = ranks[insertAt - 1];
+				result[insertAt] = result[insertAt - 1];
+				insertAt--;
+			}
+			ranks[insertAt] = rank;
+			result[insertAt] = symbol;
+		}
+		return count;
+	}
+
+	private static int getMatchClass(String text, String q, int firstIndex) {
+		int nameEnd = text.indexOf(SEPARATOR);
+		if (firstIndex == 0) {
+			return 0;
+		}
+		int wordStart = -1;
+		int matchInName = -1;
+		for (int index = firstIndex; index >= 0 && index < nameEnd; index = text.indexOf(q, index + 1)) {
+			if (matchInName < 0) {
+				matchInName = index;
+			}
+			if (!Character.isLetterOrDigit(text.charAt(index - 1))) {
+				wordStart = index;
+				break;
+			}
+		}
+		if (wordStart >= 0) {
+			return 1;
+		}
+		return matchInName >= 0 ? 2 : 3;
+	}
+
+	private static Set<Long> grams(String text) {
+		Set<Long> result = new HashSet<Long>(text.length() * 2);
+		for (int i = 0; i + MIN_GRAM <= text.length(); i++) {
+			result.add(Long.valueOf(trigram(text, i)));
+		}
+		for (int i = 0; i < text.length(); i++) {
+			boolean wordStart = i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1));
+			if (wordStart && Character.isLetterOrDigit(text.charAt(i))) {
+				String word = text.substring(i, Math.min(text.length(), i + MIN_GRAM - 1));
+				for (int length = 1; length <= word.length(); length++) {
+					result.add(Long.valueOf(prefixGram(word, length)));
+				}
+			}
+		}
+		return result;
+	}
+
+	private static long trigram(String text, int start) {
+		return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+	}
+
+	private static long prefixGram(String text, int length) {
+		long gram = PREFIX_FLAG | length;
+		for (int i = 0; i < length; i++) {
+			gram |= (long) text.charAt(i) << (16 * (i + 1));
+		}
+		return gram;
+	}
+
+	/**
+	 * Sorted set of symbols
+	 */
+	private static final class Postings {
+		int[] symbols = new int[4];
+		int size;
+
+		void add(int symbol) {
+			int index = indexOf(symbol);
+			if (index >= 0) {
+				return;
+			}
+			int insertAt = -(index + 1);
+			if (this.size == this.symbols.length) {
+				int[] grown = new int[this.size * 2];
+				System.arraycopy(this.symbols, 0, grown, 0, this.size);
+				this.symbols = grown;
+			}
+			System.arraycopy(this.symbols, insertAt, this.symbols, insertAt + 1, this.size - insertAt);
+			this.symbols[insertAt] = symbol;
+			this.size++;
+		}
+
+		void remove(int symbol) {
+			int index = indexOf(symbol);
+			if (index >= 0) {
+				System.arraycopy(this.symbols, index + 1, this.symbols, index, this.size - index - 1);
+				this.size--;
+			}
+		}
+
+		private int indexOf(int symbol) {
+			int low = 0;
+			int high = this.size - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int value = this.symbols[mid];
+				if (value < symbol) {
+					low = mid + 1;
+				} else if (value > symbol) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -(low + 1);
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+package org.showshortcuts.internal;
+
+import java.util.BitSet;
+
+import org.eclipse.core.commands.Command;
+import org.eclipse.core.commands.common.NotDefinedException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.commands.ICommandService;
+import org.showshortcuts.core.CommandSymbols;
+
+/**
+ * Owns the {@link CommandIndex} of all commands. The command names are read
+ * on the UI thread, as the command manager is not thread-safe. The index is
+ * then built once from them by a background job and handed back to the UI
+ * thread, where it is kept up to date with each changed command.
+ *
+ * @author d031150
+ */
+public final class CommandIndexer implements CommandSymbols.Listener {
+
+	private final Display display;
+	private final ICommandService cmdService;
+	private final CommandSymbols symbols;
+	private volatile Job job;
+
+	// UI thread only
+	private CommandIndex index;
+	private final BitSet pendingChanges = new BitSet();
+	private boolean disposed;
+
+	public CommandIndexer(Display display, ICommandService cmdService, CommandSymbols symbols) {
+		this.display = display;
+		this.cmdService = cmdService;
+		this.symbols = symbols;
+	}
+
+	/**
+	 * Starts building the index
+	 */
+	public void start() {
+		this.symbols.addListener(this);
+		this.display.asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				scheduleBuild();
+			}
+		});
+	}
+
+	/**
+	 * Stops building and updating the index
+	 */
+	public void dispose() {
+		this.symbols.removeListener(this);
+		Job running = this.job;
+		if (running != null) {
+			running.cancel();
+		}
+		this.disposed = true;
+		this.index = null;
+	}
+
+	/**
+	 * Returns the index. Must be called on the UI thread.
+	 *
+	 * @return the index or <code>null</code> if it is still being built
+	 */
+	public CommandIndex getIndex() {
+		return this.index;
+	}
+
+	private void scheduleBuild() {
+		if (this.disposed) {
+			return;
+		}
+		int size = this.symbols.size();
+		final String[] ids = new String[size];
+		final String[] names = new String[size];
+		for (int symbol = 0; symbol < size; symbol++) {
+			ids[symbol] = this.symbols.getId(symbol);
+			names[symbol] = getName(ids[symbol]);
+		}
+		this.job = new Job("Indexing commands") { //$NON-NLS-1$
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				return build(ids, names, monitor);
+			}
+		};
+		this.job.setSystem(true);
+		this.job.setPriority(Job.DECORATE);
+		this.job.schedule();
+	}
+
+	private IStatus build(String[] ids, String[] names, IProgressMonitor monitor) {
+		final CommandIndex newIndex = new CommandIndex();
+		for (int symbol = 0; symbol < ids.length; symbol++) {
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			newIndex.update(symbol, ids[symbol], names[symbol]);
+		}
+		if (!this.display.isDisposed()) {
+			this.display.asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					publish(newIndex);
+				}
+			});
+		}
+		return Status.OK_STATUS;
+	}
+
+	private void publish(CommandIndex newIndex) {
+		if (this.disposed) {
+			return;
+		}
+		// commands changed while the job was running may or may not be in the new index
+		for (int symbol = this.pendingChanges.nextSetBit(0); symbol >= 0; symbol = this.pendingChanges.nextSetBit(symbol + 1)) {
+			index(newIndex, symbol);
+		}
+		this.pendingChanges.clear();
+		// commands interned by others after the job read the size
+		for (int symbol = 0; symbol < this.symbols.size(); symbol++) {
+			if (newIndex.getName(symbol) == null) {
+				index(newIndex, symbol);
+			}
+		}
+		this.index = newIndex;
+	}
+
+	private void index(CommandIndex target, int symbol) {
+		String id = this.symbols.getId(symbol);
+		target.update(symbol, id, getName(id));
+	}
+
+	/*
+	 * UI thread only
+	 */
+	private String getName(String id) {
+		Command command = this.cmdService.getCommand(id);
+		try {
+			if (command.isDefined()) {
+				return command.getName();
+			}
+		} catch (NotDefinedException e) {
+			// removed from the index
+		}
+		return null;
+	}
+
+	@Override
+	public void symbolChanged(final int symbol) {
+		if (symbol == CommandSymbols.NO_SYMBOL || this.display.isDisposed()) {
+			return; // categories are not indexed
+		}
+		this.display.asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				if (CommandIndexer.this.disposed) {
+					return;
+				}
+				if (CommandIndexer.this.index != null) {
+					index(CommandIndexer.this.index, symbol);
+				} else {
+					CommandIndexer.this.pendingChanges.set(symbol);
+				}
+			}
+		});
+	}
+
+}
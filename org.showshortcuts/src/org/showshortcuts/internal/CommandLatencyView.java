@@ -0,0 +1,150 @@
+package org.showshortcuts.internal;
+
+import java.text.MessageFormat;
+import java.util.Map;
+
+import org.eclipse.core.commands.common.NotDefinedException;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.TableViewerColumn;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.commands.ICommandService;
+import org.eclipse.ui.part.ViewPart;
+import org.showshortcuts.internal.l10n.Messages;
+
+/**
+ * Lists the latency of the commands executed while profiling is enabled, the
+ * slowest first
+ *
+ * @author d031150
+ * @see CommandProfiler
+ */
+public class CommandLatencyView extends ViewPart {
+
+	static final String ID = Activator.PLUGIN_ID + ".commandLatencyView"; //$NON-NLS-1$
+
+	private static final int REFRESH_INTERVAL = 2000;
+	private static final String MILLIS_FORMAT = "{0,number,0.0}"; //$NON-NLS-1$
+
+	private TableViewer viewer;
+	private final Runnable refreshRunnable = new Runnable() {
+		@Override
+		public void run() {
+			if (CommandLatencyView.this.viewer != null && !CommandLatencyView.this.viewer.getTable().isDisposed()) {
+				refresh();
+				CommandLatencyView.this.viewer.getTable().getDisplay().timerExec(REFRESH_INTERVAL, this);
+			}
+		}
+	};
+
+	@Override
+	public void createPartControl(Composite parent) {
+		this.viewer = new TableViewer(parent, SWT.FULL_SELECTION | SWT.MULTI | SWT.H_SCROLL | SWT.V_SCROLL);
+		this.viewer.getTable().setHeaderVisible(true);
+		this.viewer.getTable().setLinesVisible(true);
+		this.viewer.setContentProvider(ArrayContentProvider.getInstance());
+
+		final ICommandService cmdService = (ICommandService) getSite().getService(ICommandService.class);
+		createColumn(Messages.LatencyView_command_xcol, 300, SWT.LEFT, new EntryLabelProvider() {
+			@Override
+			String getText(String commandId, LatencyHistogram histogram) {
+				try {
+					return cmdService.getCommand(commandId).getName();
+				} catch (NotDefinedException e) {
+					return commandId;
+				}
+			}
+		});
+		createColumn(Messages.LatencyView_count_xcol, 70, SWT.RIGHT, new EntryLabelProvider() {
+			@Override
+			String getText(String commandId, LatencyHistogram histogram) {
+				return Long.toString(histogram.getCount());
+			}
+		});
+		createColumn(Messages.LatencyView_mean_xcol, 80, SWT.RIGHT, new EntryLabelProvider() {
+			@Override
+			String getText(String commandId, LatencyHistogram histogram) {
+				return formatMillis(histogram.getMeanMillis());
+			}
+		});
+		createColumn(Messages.LatencyView_p95_xcol, 80, SWT.RIGHT, new EntryLabelProvider() {
+			@Override
+			String getText(String commandId, LatencyHistogram histogram) {
+				return formatMillis(histogram.getPercentileMillis(0.95));
+			}
+		});
+		createColumn(Messages.LatencyView_max_xcol, 80, SWT.RIGHT, new EntryLabelProvider() {
+			@Override
+			String getText(String commandId, LatencyHistogram histogram) {
+				return formatMillis(histogram.getMaxMillis());
+			}
+		});
+
+		IToolBarManager toolBar = getViewSite().getActionBars().getToolBarManager();
+		toolBar.add(new ResetAction());
+
+		refresh();
+		parent.getDisplay().timerExec(REFRESH_INTERVAL, this.refreshRunnable);
+	}
+
+	private void createColumn(String title, int width, int style, EntryLabelProvider labelProvider) {
+		TableViewerColumn column = new TableViewerColumn(this.viewer, style);
+		column.getColumn().setText(title);
+		column.getColumn().setWidth(width);
+		column.setLabelProvider(labelProvider);
+	}
+
+	private void refresh() {
+		CommandProfiler profiler = Activator.getDefault().getCommandProfiler();
+		this.viewer.setInput(profiler.getSlowestCommands());
+	}
+
+	private static String formatMillis(double millis) {
+		return MessageFormat.format(MILLIS_FORMAT, Double.valueOf(millis));
+	}
+
+	@Override
+	public void setFocus() {
+		this.viewer.getControl().setFocus();
+	}
+
+	@Override
+	public void dispose() {
+		if (this.viewer != null && !this.viewer.getTable().isDisposed()) {
+			this.viewer.getTable().getDisplay().timerExec(-1, this.refreshRunnable);
+		}
+		super.dispose();
+	}
+
+	private abstract static class EntryLabelProvider extends ColumnLabelProvider {
+		@Override
+		public String getText(Object element) {
+			@SuppressWarnings("unchecked")
+			Map.Entry<String, LatencyHistogram> entry = (Map.Entry<String, LatencyHistogram>) element;
+			return getText(entry.getKey(), entry.getValue());
+		}
+
+		abstract String getText(String commandId, LatencyHistogram histogram);
+	}
+
+	private final class ResetAction extends Action {
+		ResetAction() {
+			super(Messages.LatencyView_reset_xtol, AS_PUSH_BUTTON);
+			setToolTipText(Messages.LatencyView_reset_xtol);
+			setImageDescriptor(PlatformUI.getWorkbench().getSharedImages().getImageDescriptor(ISharedImages.IMG_ETOOL_CLEAR));
+		}
+
+		@Override
+		public void run() {
+			Activator.getDefault().getCommandProfiler().reset();
+			refresh();
+		}
+	}
+
+}
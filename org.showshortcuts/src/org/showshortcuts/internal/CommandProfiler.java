@@ -0,0 +1,159 @@
+package org.showshortcuts.internal;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.showshortcuts.core.CommandSymbols;
+
+/**
+ * Measures the wall time from the start to the end of each command execution
+ * and keeps a {@link LatencyHistogram} per command. Histograms are kept in an
+ * array indexed by the {@link CommandSymbols symbol} of the command.
+ * Executions are tracked per thread, so that nested commands and commands
+ * executed by jobs are timed correctly.
+ *
+ * @author d031150
+ */
+public final class CommandProfiler {
+
+	private final CommandSymbols symbols;
+	private volatile LatencyHistogram[] histograms = new LatencyHistogram[0];
+	private final ThreadLocal<Executions> executions = new ThreadLocal<Executions>() {
+		@Override
+		protected Executions initialValue() {
+			return new Executions();
+		}
+	};
+
+	public CommandProfiler(CommandSymbols symbols) {
+		this.symbols = symbols;
+	}
+
+	/**
+	 * Called before a command is executed
+	 *
+	 * @param commandId
+	 *            the command
+	 */
+	public void started(String commandId) {
+		this.executions.get().push(this.symbols.intern(commandId), System.nanoTime());
+	}
+
+	/**
+	 * Called after a command was executed, successfully or not
+	 *
+	 * @param commandId
+	 *            the command
+	 * @param record
+	 *            whether to record the latency. <code>false</code> if the
+	 *            command didn't run at all, e.g. because it was disabled.
+	 */
+	public void finished(String commandId, boolean record) {
+		long end = System.nanoTime();
+		int symbol = this.symbols.get(commandId);
+		if (symbol == CommandSymbols.NO_SYMBOL) {
+			return; // not started while profiling
+		}
+		Executions stack = this.executions.get();
+		// drop executions whose end we missed
+		while (stack.size > 0) {
+			stack.size--;
+			if (stack.symbols[stack.size] == symbol) {
+				if (record) {
+					getHistogram(symbol).record(end - stack.startNanos[stack.size]);
+				}
+				return;
+			}
+		}
+	}
+
+	private LatencyHistogram getHistogram(int symbol) {
+		LatencyHistogram[] current = this.histograms;
+		LatencyHistogram histogram = symbol < current.length ? current[symbol] : null;
+		if (histogram == null) {
+			synchronized (this) {
+				current = this.histograms;
+				if (symbol >= current.length) {
+					LatencyHistogram[] grown = new LatencyHistogram[Math.max(symbol + 1, this.symbols.size())];
+					System.arraycopy(current, 0, grown, 0, current.length);
+					current = grown;
+				}
+				histogram = current[symbol];
+				if (histogram == null) {
+					histogram = new LatencyHistogram();
+					current[symbol] = histogram;
+				}
+				// republish, so that other threads see the new slot
+				this.histograms = current;
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * Returns the histograms of all commands executed so far, the slowest first.
+	 * The histograms keep recording, so they are ordered by their 95th
+	 * percentile at the time of the call.
+	 *
+	 * @return the histograms by command id, ordered by their 95th percentile
+	 */
+	public List<Map.Entry<String, LatencyHistogram>> getSlowestCommands() {
+		LatencyHistogram[] current = this.histograms;
+		// read each percentile once, as sorting on changing values breaks the comparator's contract
+		final double[] percentiles = new double[current.length];
+		List<Integer> order = new ArrayList<Integer>();
+		for (int symbol = 0; symbol < current.length; symbol++) {
+			if (current[symbol] != null) {
+				percentiles[symbol] = current[symbol].getPercentileMillis(0.95);
+				order.add(Integer.valueOf(symbol));
+			}
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer s1, Integer s2) {
+				return Double.compare(percentiles[s2.intValue()], percentiles[s1.intValue()]);
+			}
+		});
+		List<Map.Entry<String, LatencyHistogram>> result = new ArrayList<Map.Entry<String, LatencyHistogram>>(order.size());
+		for (Integer symbol : order) {
+			int s = symbol.intValue();
+			result.add(new AbstractMap.SimpleImmutableEntry<String, LatencyHistogram>(this.symbols.getId(s), current[s]));
+		}
+		return result;
+	}
+
+	/**
+	 * Discards all recorded latencies
+	 */
+	public synchronized void reset() {
+		this.histograms = new LatencyHistogram[0];
+	}
+
+	/**
+	 * Stack of the running executions of one thread
+	 */
+	private static final class Executions {
+		int[] symbols = new int[4];
+		long[] startNanos = new long[4];
+		int size;
+
+		void push(int symbol, long start) {
+			if (this.size == this.symbols.length) {
+				int[] grownSymbols = new int[this.size * 2];
+				long[] grownStarts = new long[this.size * 2];
+				System.arraycopy(this.symbols, 0, grownSymbols, 0, this.size);
+				System.arraycopy(this.startNanos, 0, grownStarts, 0, this.size);
+				this.symbols = grownSymbols;
+				this.startNanos = grownStarts;
+			}
+			this.symbols[this.size] = symbol;
+			this.startNanos[this.size] = start;
+			this.size++;
+		}
+	}
+
+}
@@ -0,0 +1,44 @@
+package org.showshortcuts.internal;
+
+import java.io.File;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.handlers.HandlerUtil;
+import org.eclipse.ui.keys.IBindingService;
+
+/**
+ * Asks for a file and exports the active key bindings to it as a cheat sheet.
+ * {@link ActiveBindings Selecting} the active bindings and reading their
+ * texts is done here, as the binding service and the command manager must be
+ * asked on the UI thread. Sorting and writing is left to a
+ * {@link CheatSheetExporter} job.
+ *
+ * @author d031150
+ */
+public class ExportCheatSheetHandler extends AbstractHandler {
+
+	@Override
+	public Object execute(ExecutionEvent event) throws ExecutionException {
+		IWorkbenchWindow window = HandlerUtil.getActiveWorkbenchWindowChecked(event);
+		FileDialog dialog = new FileDialog(window.getShell(), SWT.SAVE);
+		dialog.setFilterExtensions(new String[] { "*." + CheatSheetWriter.EXTENSION_HTML, //$NON-NLS-1$
+				"*." + CheatSheetWriter.EXTENSION_MARKDOWN, "*." + CheatSheetWriter.EXTENSION_CSV }); //$NON-NLS-1$ //$NON-NLS-2$
+		dialog.setFileName("shortcuts." + CheatSheetWriter.EXTENSION_HTML); //$NON-NLS-1$
+		dialog.setOverwrite(true);
+		String path = dialog.open();
+		if (path == null) {
+			return null;
+		}
+
+		IBindingService bindingService = (IBindingService) window.getService(IBindingService.class);
+		CheatSheetExporter.Row[] rows = CheatSheetExporter.createRows(ActiveBindings.get(bindingService));
+		new CheatSheetExporter(rows, new File(path)).schedule();
+		return null;
+	}
+
+}
@@ -0,0 +1,55 @@
+package org.showshortcuts.internal;
+
+import org.eclipse.jface.dialogs.IInputValidator;
+import org.eclipse.jface.dialogs.InputDialog;
+import org.eclipse.jface.preference.ListEditor;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.widgets.Composite;
+import org.showshortcuts.core.CommandFilterRule;
+import org.showshortcuts.internal.l10n.Messages;
+
+/**
+ * Field editor for the ordered list of command filter rules
+ *
+ * @author d031150
+ * @see CommandFilterRule
+ */
+public class FilterRulesFieldEditor extends ListEditor {
+
+	public FilterRulesFieldEditor(String name, String labelText, Composite parent) {
+		super(name, labelText, parent);
+	}
+
+	@Override
+	protected String createList(String[] items) {
+		return CommandFilterRule.join(items);
+	}
+
+	@Override
+	protected String[] parseString(String stringList) {
+		return CommandFilterRule.split(stringList);
+	}
+
+	@Override
+	protected String getNewInputObject() {
+		InputDialog dialog = new InputDialog(getShell(), Messages.PrefPage_filterRules_add_xtit,
+				Messages.PrefPage_filterRules_add_xmsg, "-id:", new RuleValidator()); //$NON-NLS-1$
+		if (dialog.open() == Window.OK) {
+			return dialog.getValue().trim();
+		}
+		return null;
+	}
+
+	private static final class RuleValidator implements IInputValidator {
+		@Override
+		public String isValid(String newText) {
+			try {
+				CommandFilterRule.parse(newText);
+				return null;
+			} catch (IllegalArgumentException e) {
+				return e.getMessage();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,299 @@
+package org.showshortcuts.internal;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Renders popups into PNG frames with transparency instead of showing them,
+ * to be overlaid on screen recordings, e.g. for tutorial videos. Each
+ * recording gets a new directory with numbered frames and an index file
+ * {@value #INDEX_FILE} of tab separated lines:
+ *
+ * <pre>
+ * &lt;frame file&gt; TAB &lt;time in ms&gt; TAB &lt;ms since the first frame&gt; TAB &lt;display duration in ms&gt;
+ * </pre>
+ *
+ * All frames have the same size, with the popup centered on a transparent
+ * background. They are drawn on the UI thread with one off-screen GC and
+ * image, which live as long as the recorder. Making the background
+ * transparent and encoding the PNG happen on a small pool of background
+ * threads. If too many frames are waiting for it, further frames are dropped
+ * and left out of the index rather than slowing down the IDE.
+ *
+ * @author d031150
+ */
+public final class FrameRecorder {
+
+	static final String INDEX_FILE = "frames.tsv"; //$NON-NLS-1$
+
+	private static final int FRAME_WIDTH = 960;
+	private static final int FRAME_HEIGHT = 270;
+	private static final int PADDING = 16;
+	private static final int ARC = 16;
+	/** the alpha of the popup shell */
+	private static final int ALPHA = 170;
+	/** fills the background, never used by popups */
+	private static final RGB TRANSPARENT_KEY = new RGB(255, 0, 254);
+	private static final int WORKERS = 2;
+	private static final int QUEUE_CAPACITY = 8;
+
+	private final File directory;
+	private final Display display;
+	private final ResourceTracker resourceTracker;
+	private final ThreadPoolExecutor encoder;
+
+	// UI thread only
+	private Image image;
+	private GC gc;
+	private Color keyColor;
+	private Font shortcutFont;
+	private Font nameFont;
+	private Font descriptionFont;
+	private Writer index;
+	private int frameCount;
+	private int droppedCount;
+	private long firstTime;
+
+	private FrameRecorder(File directory, Display display) {
+		this.directory = directory;
+		this.display = display;
+		this.resourceTracker = Activator.getDefault().getResourceTracker();
+		this.encoder = new ThreadPoolExecutor(WORKERS, WORKERS, 10, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, Activator.PLUGIN_ID + " frame encoder"); //$NON-NLS-1$
+						thread.setDaemon(true);
+						thread.setPriority(Thread.NORM_PRIORITY - 1);
+						return thread;
+					}
+				});
+		this.encoder.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Creates a recorder for a new directory of frames, named after the
+	 * current time
+	 *
+	 * @param parentDirectory
+	 *            the directory for all recordings, created if needed
+	 * @param display
+	 *            the display to render on
+	 * @return the recorder
+	 */
+	public static FrameRecorder create(File parentDirectory, Display display) {
+		String name = "frames-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()); //$NON-NLS-1$ //$NON-NLS-2$
+		return new FrameRecorder(new File(parentDirectory, name), display);
+	}
+
+	/**
+	 * Renders a popup into the next frame and queues it for encoding. I/O
+	 * errors are logged and stop the recording.
+	 *
+	 * @param time
+	 *            the time the popup was triggered
+	 * @param shortcut
+	 *            the formatted shortcut
+	 * @param name
+	 *            the command name
+	 * @param description
+	 *            the command description or <code>null</code>
+	 * @param duration
+	 *            how long the popup would be shown, in ms
+	 */
+	public void render(long time, String shortcut, String name, String description, int duration) {
+		if (this.image == null && !init()) {
+			return;
+		}
+		draw(shortcut, name, description);
+
+		String fileName = String.format("frame-%06d.png", Integer.valueOf(this.frameCount + 1)); //$NON-NLS-1$
+		try {
+			this.encoder.execute(new EncodeTask(this.image.getImageData(), new File(this.directory, fileName)));
+		} catch (RejectedExecutionException e) {
+			this.droppedCount++;
+			return;
+		}
+		if (this.frameCount++ == 0) {
+			this.firstTime = time;
+		}
+		try {
+			this.index.write(fileName);
+			this.index.write('\t');
+			this.index.write(Long.toString(time));
+			this.index.write('\t');
+			this.index.write(Long.toString(time - this.firstTime));
+			this.index.write('\t');
+			this.index.write(Integer.toString(duration));
+			this.index.write('\n');
+		} catch (IOException e) {
+			Activator.log(e);
+			close();
+		}
+	}
+
+	/**
+	 * Stops the recording. Queued frames are still written.
+	 */
+	public void close() {
+		this.encoder.shutdown();
+		if (this.index != null) {
+			try {
+				this.index.close();
+			} catch (IOException e) {
+				Activator.log(e);
+			}
+			this.index = null;
+		}
+		if (this.gc != null) {
+			this.resourceTracker.dispose(this.gc);
+			this.gc = null;
+		}
+		if (this.image != null) {
+			this.resourceTracker.dispose(this.image);
+			this.resourceTracker.dispose(this.keyColor);
+			this.resourceTracker.dispose(this.shortcutFont);
+			this.resourceTracker.dispose(this.nameFont);
+			this.resourceTracker.dispose(this.descriptionFont);
+			this.image = null;
+			this.resourceTracker.reportLeaks(this, "frame recorder close"); //$NON-NLS-1$
+		}
+		if (this.droppedCount > 0) {
+			Activator.log(new Status(IStatus.WARNING, Activator.PLUGIN_ID, this.droppedCount
+					+ " popup frames were dropped, as encoding could not keep up")); //$NON-NLS-1$
+		}
+	}
+
+	/*
+	 * Opens the index and creates the off-screen image with the fonts of the popup
+	 */
+	private boolean init() {
+		if (this.encoder.isShutdown()) {
+			return false;
+		}
+		try {
+			this.directory.mkdirs();
+			this.index = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(this.directory, INDEX_FILE)), "UTF-8")); //$NON-NLS-1$
+		} catch (IOException e) {
+			Activator.log(e);
+			close();
+			return false;
+		}
+		FontData defaultFontData = JFaceResources.getFont(ShortcutPopup.POPUP_FONT).getFontData()[0];
+		this.shortcutFont = this.resourceTracker.trackResource(this, new Font(this.display, defaultFontData.getName(),
+				defaultFontData.getHeight() * ShortcutPopup.POPUP_FONT_SIZEFACTOR_KEY, SWT.BOLD));
+		this.nameFont = this.resourceTracker.trackResource(this, new Font(this.display, defaultFontData.getName(),
+				defaultFontData.getHeight() * ShortcutPopup.POPUP_FONT_SIZEFACTOR_KEY_LABEL, SWT.NORMAL));
+		this.descriptionFont = this.resourceTracker.trackResource(this, new Font(this.display, defaultFontData.getName(),
+				(int) (defaultFontData.getHeight() * 1.3), SWT.NORMAL));
+		this.keyColor = this.resourceTracker.trackResource(this, new Color(this.display, TRANSPARENT_KEY));
+		this.image = this.resourceTracker.trackResource(this, new Image(this.display, FRAME_WIDTH, FRAME_HEIGHT));
+		this.gc = this.resourceTracker.trackResource(this, new GC(this.image));
+		this.gc.setTextAntialias(SWT.ON);
+		return true;
+	}
+
+	private void draw(String shortcut, String name, String description) {
+		GC g = this.gc;
+		g.setAntialias(SWT.OFF); // no blending with the transparent key on the edges
+		g.setBackground(this.keyColor);
+		g.fillRectangle(0, 0, FRAME_WIDTH, FRAME_HEIGHT);
+
+		String[] lines = { shortcut != null ? shortcut : "", name != null ? name : "", description }; //$NON-NLS-1$ //$NON-NLS-2$
+		Font[] fonts = { this.shortcutFont, this.nameFont, this.descriptionFont };
+		int lineCount = description != null ? 3 : 2;
+		int[] widths = new int[lineCount];
+		int[] heights = new int[lineCount];
+		int width = 0;
+		int height = 0;
+		for (int i = 0; i < lineCount; i++) {
+			g.setFont(fonts[i]);
+			Point extent = g.textExtent(lines[i]);
+			widths[i] = extent.x;
+			heights[i] = extent.y;
+			width = Math.max(width, extent.x);
+			height += extent.y;
+		}
+		width = Math.min(FRAME_WIDTH, width + 2 * PADDING);
+		height = Math.min(FRAME_HEIGHT, height + 2 * PADDING);
+		int x = (FRAME_WIDTH - width) / 2;
+		int y = (FRAME_HEIGHT - height) / 2;
+
+		g.setBackground(JFaceResources.getColorRegistry().get(ShortcutPopup.POPUP_COLOR_BG));
+		g.setForeground(JFaceResources.getColorRegistry().get(ShortcutPopup.POPUP_COLOR_FG));
+		g.fillRoundRectangle(x, y, width, height, ARC, ARC);
+		g.setClipping(x, y, width, height);
+		int lineY = y + PADDING;
+		for (int i = 0; i < lineCount; i++) {
+			g.setFont(fonts[i]);
+			g.drawString(lines[i], x + (width - widths[i]) / 2, lineY, true);
+			lineY += heights[i];
+		}
+		g.setClipping((Rectangle) null);
+	}
+
+	/**
+	 * Turns the background of a frame transparent and writes it as PNG
+	 */
+	private static final class EncodeTask implements Runnable {
+		private final ImageData data;
+		private final File file;
+
+		EncodeTask(ImageData data, File file) {
+			this.data = data;
+			this.file = file;
+		}
+
+		@Override
+		public void run() {
+			ImageData frame = this.data;
+			int keyPixel = frame.palette.getPixel(TRANSPARENT_KEY);
+			byte[] alpha = new byte[frame.width * frame.height];
+			int[] row = new int[frame.width];
+			for (int y = 0; y < frame.height; y++) {
+				frame.getPixels(0, y, frame.width, row, 0);
+				int offset = y * frame.width;
+				for (int x = 0; x < row.length; x++) {
+					alpha[offset + x] = row[x] == keyPixel ? 0 : (byte) ALPHA;
+				}
+			}
+			frame.alphaData = alpha;
+			ImageLoader loader = new ImageLoader();
+			loader.data = new ImageData[] { frame };
+			try {
+				loader.save(this.file.getPath(), SWT.IMAGE_PNG);
+			} catch (SWTException e) {
+				Activator.log(e);
+			}
+		}
+	}
+
+}
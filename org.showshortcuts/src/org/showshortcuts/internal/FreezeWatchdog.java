@@ -0,0 +1,324 @@
+package org.showshortcuts.internal;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Samples the stack of the UI thread while a command keeps it from running the
+ * event loop for longer than a threshold, and writes the samples per command id to a file in the folded
+ * format read by flame graph tools:
+ *
+ * <pre>
+ * &lt;outermost frame&gt;;...;&lt;innermost frame&gt; SPACE &lt;sample count&gt;
+ * </pre>
+ *
+ * The samples of all freezes of a command are aggregated into the same file,
+ * which is rewritten after each freeze.
+ * <p>
+ * The watchdog thread is started with the first command and then blocks until
+ * a command is running. It only wakes up once the threshold is reached, so
+ * commands faster than that don't cost more than a lock per start and end and
+ * one heartbeat posted to the event loop.
+ * <p>
+ * The heartbeat tells whether the event loop ran since a command started. A
+ * command starting while another one is still running is only attributed to
+ * it if it did not, i.e. if it was executed directly by the outer command.
+ * Otherwise the outer command is waiting in a nested event loop, or its end
+ * was never reported because its handler failed, and the new command is
+ * watched on its own.
+ * <p>
+ * Once a command runs longer than the threshold, it is only sampled if the
+ * heartbeat posted at its start has not run yet. If it has, e.g. because the
+ * command shows a modal dialog, the UI is responsive: another heartbeat is
+ * posted, and checked after the threshold again.
+ *
+ * @author d031150
+ */
+public final class FreezeWatchdog implements Runnable {
+
+	static final String FILE_EXTENSION = ".folded"; //$NON-NLS-1$
+
+	private static final int SAMPLE_INTERVAL = 10;
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+	private final Display display;
+	private final Thread uiThread;
+	private final File directory;
+	private final Object lock = new Object();
+	private volatile int thresholdMillis;
+	/** counts the heartbeats run by the event loop, only written by the UI thread */
+	private volatile long beats;
+	private final Runnable heartbeat = new Runnable() {
+		@Override
+		public void run() {
+			FreezeWatchdog.this.beats++;
+		}
+	};
+
+	// guarded by lock
+	private Thread thread;
+	private boolean disposed;
+	private String commandId;
+	private long startNanos;
+	private long startBeats;
+	private long checkNanos;
+	private long checkBeats;
+	private int depth;
+	private long generation;
+
+	// only used by the watchdog thread
+	private final Map<String, Map<String, int[]>> profiles = new HashMap<String, Map<String, int[]>>();
+
+	/**
+	 * @param display
+	 *            the display whose commands are watched
+	 * @param directory
+	 *            the directory to write the profiles to, created if needed
+	 */
+	public FreezeWatchdog(Display display, File directory) {
+		this.display = display;
+		this.uiThread = display.getThread();
+		this.directory = directory;
+	}
+
+	/**
+	 * Sets the time after which a running command gets sampled
+	 *
+	 * @param millis
+	 *            the threshold in ms, <code>0</code> to disable sampling
+	 */
+	public void setThreshold(int millis) {
+		this.thresholdMillis = millis;
+	}
+
+	/**
+	 * Called before a command is executed. Commands executed directly by a
+	 * command already running are attributed to the outer one.
+	 *
+	 * @param id
+	 *            the command
+	 */
+	public void started(String id) {
+		if (this.thresholdMillis <= 0 || Thread.currentThread() != this.uiThread) {
+			return;
+		}
+		synchronized (this.lock) {
+			if (this.disposed) {
+				return;
+			}
+			if (this.depth > 0 && this.beats == this.startBeats) {
+				this.depth++;
+				return;
+			}
+			this.depth = 1;
+			this.commandId = id;
+			this.startNanos = System.nanoTime();
+			this.startBeats = this.beats;
+			this.checkNanos = this.startNanos;
+			this.checkBeats = this.startBeats;
+			this.generation++;
+			if (this.thread == null) {
+				this.thread = new Thread(this, Activator.PLUGIN_ID + " freeze watchdog"); //$NON-NLS-1$
+				this.thread.setDaemon(true);
+				this.thread.start();
+			} else {
+				this.lock.notifyAll();
+			}
+		}
+		postHeartbeat();
+	}
+
+	/**
+	 * Called after a command was executed, successfully or not
+	 */
+	public void finished() {
+		if (Thread.currentThread() != this.uiThread) {
+			return;
+		}
+		synchronized (this.lock) {
+			// no need to wake up the watchdog, it notices on its next sample or deadline
+			if (this.depth > 0 && --this.depth == 0) {
+				this.commandId = null;
+			}
+		}
+	}
+
+	/**
+	 * Stops the watchdog thread
+	 */
+	public void dispose() {
+		Thread toStop;
+		synchronized (this.lock) {
+			this.disposed = true;
+			this.commandId = null;
+			toStop = this.thread;
+			this.lock.notifyAll();
+		}
+		if (toStop != null) {
+			toStop.interrupt();
+		}
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				String id;
+				long watched;
+				long watchedBeats;
+				synchronized (this.lock) {
+					while (!this.disposed && this.commandId == null) {
+						this.lock.wait();
+					}
+					if (this.disposed) {
+						return;
+					}
+					long remaining = this.checkNanos + TimeUnit.MILLISECONDS.toNanos(this.thresholdMillis) - System.nanoTime();
+					if (remaining > 0) {
+						TimeUnit.NANOSECONDS.timedWait(this.lock, remaining);
+						continue; // the command may have finished or another one started
+					}
+					id = this.commandId;
+					watched = this.generation;
+					watchedBeats = this.checkBeats;
+					if (this.beats != watchedBeats) {
+						// the event loop ran since the last check, so the UI is not frozen
+						this.checkNanos = System.nanoTime();
+						this.checkBeats = this.beats;
+						id = null;
+					}
+				}
+				if (id == null) {
+					if (!postHeartbeat()) {
+						return;
+					}
+				} else {
+					sample(id, watched, watchedBeats);
+				}
+			}
+		} catch (InterruptedException e) {
+			// disposed
+		}
+	}
+
+	private boolean postHeartbeat() {
+		try {
+			this.display.asyncExec(this.heartbeat);
+			return true;
+		} catch (SWTException e) {
+			return false; // the display is disposed
+		}
+	}
+
+	/*
+	 * Samples until the command finishes or the event loop runs the pending heartbeat
+	 */
+	private void sample(String id, long watched, long watchedBeats) throws InterruptedException {
+		Map<String, int[]> stacks = new HashMap<String, int[]>();
+		StringBuilder folded = new StringBuilder(1024);
+		while (isFrozen(watched, watchedBeats)) {
+			StackTraceElement[] trace = this.uiThread.getStackTrace();
+			if (!isFrozen(watched, watchedBeats)) {
+				break; // the sample may show whatever ran after the command
+			}
+			folded.setLength(0);
+			for (int i = trace.length - 1; i >= 0; i--) {
+				if (i < trace.length - 1) {
+					folded.append(';');
+				}
+				folded.append(trace[i].getClassName()).append('.').append(trace[i].getMethodName());
+			}
+			String stack = folded.toString();
+			int[] count = stacks.get(stack);
+			if (count == null) {
+				stacks.put(stack, new int[] { 1 });
+			} else {
+				count[0]++;
+			}
+			Thread.sleep(SAMPLE_INTERVAL);
+		}
+		if (!stacks.isEmpty()) {
+			addProfile(id, stacks);
+		}
+	}
+
+	private boolean isFrozen(long watched, long watchedBeats) {
+		synchronized (this.lock) {
+			return !this.disposed && this.commandId != null && this.generation == watched && this.beats == watchedBeats;
+		}
+	}
+
+	private void addProfile(String id, Map<String, int[]> stacks) {
+		Map<String, int[]> profile = this.profiles.get(id);
+		if (profile == null) {
+			profile = new HashMap<String, int[]>();
+			this.profiles.put(id, profile);
+		}
+		int samples = 0;
+		for (Map.Entry<String, int[]> entry : stacks.entrySet()) {
+			int count = entry.getValue()[0];
+			samples += count;
+			int[] total = profile.get(entry.getKey());
+			if (total == null) {
+				profile.put(entry.getKey(), new int[] { count });
+			} else {
+				total[0] += count;
+			}
+		}
+
+		File file = getFile(id);
+		Activator.traceFreezes("Command " + id + " froze the UI for about " + samples * SAMPLE_INTERVAL //$NON-NLS-1$ //$NON-NLS-2$
+				+ "ms after the threshold, see " + file); //$NON-NLS-1$
+		try {
+			write(file, profile);
+		} catch (IOException e) {
+			Activator.log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not write " + file, e)); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Returns the file with the profile of a command
+	 *
+	 * @param id
+	 *            the command id
+	 * @return the file, which may not exist
+	 */
+	public File getFile(String id) {
+		StringBuilder name = new StringBuilder(id.length() + FILE_EXTENSION.length());
+		for (int i = 0; i < id.length(); i++) {
+			char c = id.charAt(i);
+			boolean safe = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '.' || c == '-';
+			name.append(safe ? c : '_');
+		}
+		name.append(FILE_EXTENSION);
+		return new File(this.directory, name.toString());
+	}
+
+	private static void write(File file, Map<String, int[]> profile) throws IOException {
+		file.getParentFile().mkdirs();
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), ENCODING));
+		try {
+			for (Map.Entry<String, int[]> entry : profile.entrySet()) {
+				writer.write(entry.getKey());
+				writer.write(' ');
+				writer.write(Integer.toString(entry.getValue()[0]));
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+}
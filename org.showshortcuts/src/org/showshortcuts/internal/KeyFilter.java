@@ -0,0 +1,165 @@
+package org.showshortcuts.internal;
+
+import org.eclipse.jface.bindings.keys.KeySequence;
+import org.eclipse.jface.bindings.keys.KeyStroke;
+import org.eclipse.jface.bindings.keys.SWTKeySupport;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.keys.IBindingService;
+import org.showshortcuts.core.EventPipeline;
+import org.showshortcuts.core.ShortcutEvent;
+
+/**
+ * Display filter that shows keys which do not trigger a command: plain
+ * modifier keys, chords with Ctrl, Alt or Command, and function keys.
+ * <p>
+ * On Windows, AltGr arrives as Ctrl+Alt, so Ctrl+Alt with a printable
+ * character, like '@' or '{' on many European layouts, counts as typing.
+ * <p>
+ * As the filter sees every key event of the IDE, the path for ordinary typing
+ * must not allocate anything. It only reads the event fields and looks up
+ * precomputed tables. Keys bound to a command never get here, as the
+ * workbench's own key filter consumes them first.
+ *
+ * @author d031150
+ */
+public final class KeyFilter implements Listener {
+
+	public static final int CLASS_MODIFIER = 1;
+	public static final int CLASS_CHORD = 1 << 1;
+	public static final int CLASS_FUNCTION_KEY = 1 << 2;
+
+	private static final int MODIFIER_KEYS = SWT.ALT | SWT.SHIFT | SWT.CTRL | SWT.COMMAND;
+	private static final int MODIFIER_SHIFT = 16; // SWT.ALT is the lowest modifier bit
+	private static final int KEYCODE_INDEX_MASK = 0xFF;
+
+	/** in {@link #STATE_CLASSES}: a chord, unless the key types a printable character (AltGr) */
+	private static final byte STATE_ALT_GRAPH = 1 << 6;
+
+	/** chord class by <code>(stateMask &gt;&gt;&gt; 16) &amp; 0x7F</code> */
+	private static final byte[] STATE_CLASSES = new byte[(MODIFIER_KEYS >>> MODIFIER_SHIFT) + 1];
+	/** key class by the lower bits of <code>SWT.KEYCODE_BIT</code> key codes */
+	private static final byte[] KEYCODE_CLASSES = new byte[KEYCODE_INDEX_MASK + 1];
+
+	static {
+		int chordModifiers = (SWT.CTRL | SWT.ALT | SWT.COMMAND) >>> MODIFIER_SHIFT;
+		int altGraph = (SWT.CTRL | SWT.ALT) >>> MODIFIER_SHIFT;
+		int command = SWT.COMMAND >>> MODIFIER_SHIFT;
+		for (int i = 0; i < STATE_CLASSES.length; i++) {
+			if ((i & altGraph) == altGraph && (i & command) == 0) {
+				STATE_CLASSES[i] = STATE_ALT_GRAPH; // with or without Shift
+			} else if ((i & chordModifiers) != 0) {
+				STATE_CLASSES[i] = CLASS_CHORD;
+			}
+		}
+		for (int key = SWT.F1; key <= SWT.F15; key++) {
+			KEYCODE_CLASSES[key & KEYCODE_INDEX_MASK] = CLASS_FUNCTION_KEY;
+		}
+	}
+
+	private final Display display;
+	private final EventPipeline pipeline;
+	private int enabledClasses;
+	private int pendingModifiers;
+	private boolean installed;
+
+	public KeyFilter(Display display, EventPipeline pipeline) {
+		this.display = display;
+		this.pipeline = pipeline;
+	}
+
+	/**
+	 * Installs or removes the filter. Must be called on the UI thread.
+	 *
+	 * @param classes
+	 *            the key classes to show, a combination of the
+	 *            <code>CLASS_*</code> constants. <code>0</code> removes the
+	 *            filter.
+	 */
+	public void setEnabledClasses(int classes) {
+		this.enabledClasses = classes;
+		this.pendingModifiers = 0;
+		if (this.display.isDisposed()) {
+			return;
+		}
+		if (classes != 0 && !this.installed) {
+			this.display.addFilter(SWT.KeyDown, this);
+			this.display.addFilter(SWT.KeyUp, this);
+			this.installed = true;
+		} else if (classes == 0 && this.installed) {
+			this.display.removeFilter(SWT.KeyDown, this);
+			this.display.removeFilter(SWT.KeyUp, this);
+			this.installed = false;
+		}
+	}
+
+	@Override
+	public void handleEvent(Event event) {
+		int keyCode = event.keyCode;
+		boolean modifierKey = keyCode != 0 && (keyCode & ~MODIFIER_KEYS) == 0;
+
+		if (event.type == SWT.KeyUp) {
+			// modifiers released without any other key in between. Key downs consumed by a
+			// key binding don't get here, but their key ups do.
+			if (!modifierKey) {
+				this.pendingModifiers = 0;
+			} else if (this.pendingModifiers != 0) {
+				int modifiers = this.pendingModifiers;
+				this.pendingModifiers = 0;
+				if ((this.enabledClasses & CLASS_MODIFIER) != 0) {
+					offerKey(modifiers);
+				}
+			}
+			return;
+		}
+
+		if (modifierKey) {
+			this.pendingModifiers |= keyCode;
+			return;
+		}
+		this.pendingModifiers = 0;
+
+		int keyClass = STATE_CLASSES[(event.stateMask & MODIFIER_KEYS) >>> MODIFIER_SHIFT];
+		if (keyClass == STATE_ALT_GRAPH) {
+			keyClass = isPrintable(event.character) ? 0 : CLASS_CHORD;
+		}
+		if ((keyCode & SWT.KEYCODE_BIT) != 0) {
+			keyClass |= KEYCODE_CLASSES[keyCode & KEYCODE_INDEX_MASK];
+		}
+		if ((keyClass & this.enabledClasses) == 0) {
+			return;
+		}
+
+		showUnboundKey(event);
+	}
+
+	/*
+	 * Ctrl+Alt with a letter that AltGr doesn't map gives a control character
+	 */
+	private static boolean isPrintable(char c) {
+		return c >= ' ' && (c < 0x7F || c > 0x9F);
+	}
+
+	private void showUnboundKey(Event event) {
+		int accelerator = SWTKeySupport.convertEventToUnmodifiedAccelerator(event);
+		KeyStroke keyStroke = SWTKeySupport.convertAcceleratorToKeyStroke(accelerator);
+		IBindingService bindingService = (IBindingService) PlatformUI.getWorkbench().getService(IBindingService.class);
+		KeySequence sequence = KeySequence.getInstance(keyStroke);
+		if (bindingService.isPerfectMatch(sequence) || bindingService.isPartialMatch(sequence)) {
+			return; // shown by the execution listener
+		}
+		offerKey(accelerator);
+	}
+
+	private void offerKey(int accelerator) {
+		ShortcutEvent event = this.pipeline.claim();
+		if (event != null) {
+			event.setKey(accelerator);
+			this.pipeline.publish(event);
+		}
+	}
+
+}
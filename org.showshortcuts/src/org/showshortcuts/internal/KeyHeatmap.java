@@ -0,0 +1,159 @@
+package org.showshortcuts.internal;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.swt.SWT;
+import org.showshortcuts.core.EventSink;
+import org.showshortcuts.core.ShortcutEvent;
+
+/**
+ * Counts how often each key of the {@link KeyboardLayout} appears in the
+ * shortcuts shown by the plug-in, in one layer for all shortcuts, one for
+ * those without modifiers and one per modifier. A key stroke counts for its
+ * natural key and its modifier keys, in every layer it belongs to; each
+ * stroke of a key sequence counts on its own.
+ * <p>
+ * Listeners are told once per batch of the pipeline which slots changed, so
+ * that they can repaint just these keys. Must only be used on the UI thread.
+ *
+ * @author d031150
+ */
+public final class KeyHeatmap implements EventSink {
+
+	static final int LAYER_ALL = 0;
+	static final int LAYER_PLAIN = 1;
+	static final int LAYER_CTRL = 2;
+	static final int LAYER_ALT = 3;
+	static final int LAYER_SHIFT = 4;
+	static final int LAYER_COMMAND = 5;
+	static final int LAYER_COUNT = 6;
+
+	/** number of shades including the one for keys never used */
+	static final int LEVEL_COUNT = 12;
+
+	private static final int[] MODIFIERS = { SWT.CTRL, SWT.ALT, SWT.SHIFT, SWT.COMMAND };
+	private static final int[] MODIFIER_LAYERS = { LAYER_CTRL, LAYER_ALT, LAYER_SHIFT, LAYER_COMMAND };
+
+	/**
+	 * Notified about changed counts
+	 */
+	interface Listener {
+		/**
+		 * Called at the end of a batch in which keys were counted, and after
+		 * a reset
+		 *
+		 * @param slots
+		 *            the slots of the changed keys; only valid during the call
+		 */
+		void keysChanged(BitSet slots);
+	}
+
+	private final long[][] counts = new long[LAYER_COUNT][KeyboardLayout.getSlotCount()];
+	private final BitSet dirty = new BitSet(KeyboardLayout.getSlotCount());
+	private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+	void addListener(Listener listener) {
+		this.listeners.addIfAbsent(listener);
+	}
+
+	void removeListener(Listener listener) {
+		this.listeners.remove(listener);
+	}
+
+	long getCount(int layer, int slot) {
+		return this.counts[layer][slot];
+	}
+
+	/**
+	 * Returns the shade of a key. It grows with the binary logarithm of the
+	 * count, so it does not depend on other keys and a new count never
+	 * requires to repaint more than the counted key.
+	 *
+	 * @param layer
+	 *            the layer
+	 * @param slot
+	 *            the slot of the key
+	 * @return the shade, from 0 for unused keys to {@link #LEVEL_COUNT} - 1
+	 */
+	int getLevel(int layer, int slot) {
+		long count = this.counts[layer][slot];
+		return Math.min(LEVEL_COUNT - 1, Long.SIZE - Long.numberOfLeadingZeros(count));
+	}
+
+	/**
+	 * Resets all counts to zero
+	 */
+	void clear() {
+		for (long[] layer : this.counts) {
+			Arrays.fill(layer, 0);
+		}
+		this.dirty.set(0, KeyboardLayout.getSlotCount());
+		fireKeysChanged();
+	}
+
+	@Override
+	public void accept(ShortcutEvent event) {
+		switch (event.getKind()) {
+		case ShortcutEvent.KIND_COMMAND:
+		case ShortcutEvent.KIND_KEY:
+			int strokeCount = event.getStrokeCount();
+			if (strokeCount > 0) {
+				int[] strokes = event.getStrokes();
+				for (int i = 0; i < strokeCount; i++) {
+					count(strokes[i]);
+				}
+			} else if (event.hasKey() || event.getKind() == ShortcutEvent.KIND_KEY) {
+				count(event.getAccelerator());
+			}
+			break;
+		default:
+			break; // mouse triggers and replays have no keys, partial sequences are counted once completed
+		}
+	}
+
+	@Override
+	public void endOfBatch() {
+		if (!this.dirty.isEmpty()) {
+			fireKeysChanged();
+		}
+	}
+
+	private void fireKeysChanged() {
+		for (Listener listener : this.listeners) {
+			listener.keysChanged(this.dirty);
+		}
+		this.dirty.clear();
+	}
+
+	private void count(int accelerator) {
+		int modifiers = accelerator & SWT.MODIFIER_MASK;
+		int keySlot = KeyboardLayout.getSlotForCode(accelerator & SWT.KEY_MASK);
+		increment(LAYER_ALL, modifiers, keySlot);
+		if (modifiers == 0) {
+			increment(LAYER_PLAIN, modifiers, keySlot);
+		}
+		for (int i = 0; i < MODIFIERS.length; i++) {
+			if ((modifiers & MODIFIERS[i]) != 0) {
+				increment(MODIFIER_LAYERS[i], modifiers, keySlot);
+			}
+		}
+	}
+
+	private void increment(int layer, int modifiers, int keySlot) {
+		long[] layerCounts = this.counts[layer];
+		if (keySlot >= 0) {
+			layerCounts[keySlot]++;
+			this.dirty.set(keySlot);
+		}
+		for (int modifier : MODIFIERS) {
+			if ((modifiers & modifier) != 0) {
+				int slot = KeyboardLayout.getSlotForCode(modifier);
+				layerCounts[slot]++;
+				this.dirty.set(slot);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,246 @@
+package org.showshortcuts.internal;
+
+import org.eclipse.core.commands.contexts.ContextManagerEvent;
+import org.eclipse.core.commands.contexts.IContextManagerListener;
+import org.eclipse.jface.bindings.BindingManager;
+import org.eclipse.jface.bindings.BindingManagerEvent;
+import org.eclipse.jface.bindings.IBindingManagerListener;
+import org.eclipse.jface.bindings.keys.KeyStroke;
+import org.eclipse.jface.bindings.keys.SWTKeySupport;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.ui.contexts.IContextService;
+import org.eclipse.ui.keys.IBindingService;
+import org.showshortcuts.core.EventPipeline;
+import org.showshortcuts.core.ShortcutEvent;
+
+/**
+ * Tracks multi-stroke key sequences while they are typed. A state machine
+ * walks the {@link BindingTrie} of the active bindings with each key down:
+ * prefixes are shown as a partial sequence, and a completed sequence is kept
+ * until the execution listener
+ * {@link #takeCompletedSequence(String, int, ShortcutEvent) takes} it to show
+ * the whole sequence instead of just its last stroke.
+ * <p>
+ * The tree is rebuilt in the background of the UI thread whenever the active
+ * bindings may have changed, so key strokes only cost a binary search per
+ * candidate accelerator and never query the binding service.
+ * <p>
+ * Display filters are called in the order they were added, and the workbench
+ * adds its key filter before any plug-in can. It consumes the strokes of
+ * bindings, so that this filter, which only observes events and never changes
+ * them, typically doesn't see the strokes of a sequence. Partial sequences
+ * are then not shown, and a completed sequence is looked up in the tree by
+ * the command and the stroke that triggered it. Must only be used on the UI
+ * thread.
+ *
+ * @author d031150
+ */
+public final class KeySequenceTracker implements Listener, IBindingManagerListener, IContextManagerListener {
+
+	private static final int MODIFIER_KEYS = SWT.ALT | SWT.SHIFT | SWT.CTRL | SWT.COMMAND;
+
+	private final Display display;
+	private final EventPipeline pipeline;
+	private final IBindingService bindingService;
+	private final IContextService contextService;
+	private BindingManager bindingManager;
+	private final Runnable rebuildRunnable = new Runnable() {
+		@Override
+		public void run() {
+			rebuild();
+		}
+	};
+
+	private BindingTrie trie = BindingTrie.EMPTY;
+	private BindingTrie.Node state = BindingTrie.EMPTY.getRoot();
+	private final int[] strokes = new int[ShortcutEvent.MAX_STROKES];
+	private int strokeCount;
+	private int lastAccelerator;
+	private final int[] completed = new int[ShortcutEvent.MAX_STROKES];
+	private int completedCount;
+	private boolean rebuildScheduled;
+	private boolean installed;
+
+	public KeySequenceTracker(Display display, EventPipeline pipeline, IBindingService bindingService,
+			IContextService contextService) {
+		this.display = display;
+		this.pipeline = pipeline;
+		this.bindingService = bindingService;
+		this.contextService = contextService;
+	}
+
+	/**
+	 * Installs or removes the filter
+	 *
+	 * @param enabled
+	 *            whether to track key sequences
+	 */
+	public void setEnabled(boolean enabled) {
+		if (this.display.isDisposed() || enabled == this.installed) {
+			return;
+		}
+		this.installed = enabled;
+		reset();
+		this.completedCount = 0;
+		if (enabled) {
+			this.display.addFilter(SWT.KeyDown, this);
+			this.contextService.addContextManagerListener(this);
+			this.bindingManager = getBindingManager(this.bindingService);
+			if (this.bindingManager != null) {
+				this.bindingManager.addBindingManagerListener(this);
+			}
+			rebuild();
+		} else {
+			this.display.removeFilter(SWT.KeyDown, this);
+			this.contextService.removeContextManagerListener(this);
+			if (this.bindingManager != null) {
+				this.bindingManager.removeBindingManagerListener(this);
+				this.bindingManager = null;
+			}
+			this.trie = BindingTrie.EMPTY;
+			this.state = this.trie.getRoot();
+		}
+	}
+
+	/*
+	 * The binding manager is only known to the binding service implementation,
+	 * without it the tree is not rebuilt on binding changes, only on context changes
+	 */
+	private static BindingManager getBindingManager(IBindingService bindingService) {
+		try {
+			Reflection service = Reflection.forObject(bindingService);
+			Object manager = service.getFieldValue("bindingManager", null); //$NON-NLS-1$
+			if (manager == null) {
+				manager = service.getFieldValue("manager", null); // E4 //$NON-NLS-1$
+			}
+			return manager instanceof BindingManager ? (BindingManager) manager : null;
+		} catch (IllegalStateException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Adds the sequence just completed by the given stroke, if any, to the
+	 * event of its command. Must be called on the UI thread while the command
+	 * of the sequence executes.
+	 *
+	 * @param commandId
+	 *            the command
+	 * @param accelerator
+	 *            the unmodified accelerator of the trigger
+	 * @param event
+	 *            the event of the command
+	 */
+	public void takeCompletedSequence(String commandId, int accelerator, ShortcutEvent event) {
+		int count = this.completedCount;
+		this.completedCount = 0;
+		if (!this.installed) {
+			return;
+		}
+		KeyStroke trigger = SWTKeySupport.convertAcceleratorToKeyStroke(accelerator);
+		if (count > 0 && SWTKeySupport.convertAcceleratorToKeyStroke(this.completed[count - 1]).equals(trigger)) {
+			event.setSequence(this.completed, count);
+			return;
+		}
+		// the strokes were consumed by the workbench's key filter
+		int[] sequence = this.trie.getSequence(commandId, trigger);
+		if (sequence != null && sequence.length <= ShortcutEvent.MAX_STROKES) {
+			event.setSequence(sequence, sequence.length);
+		}
+	}
+
+	@Override
+	public void handleEvent(Event event) {
+		int keyCode = event.keyCode;
+		if (keyCode == 0 || (keyCode & ~MODIFIER_KEYS) == 0) {
+			return; // modifiers don't end a sequence
+		}
+		this.completedCount = 0;
+
+		BindingTrie.Node root = this.trie.getRoot();
+		BindingTrie.Node next = findChild(this.state, event);
+		if (next == null && this.state != root) {
+			// the sequence is broken, but the stroke may start a new one
+			reset();
+			next = findChild(root, event);
+		}
+		if (next == null || this.strokeCount == ShortcutEvent.MAX_STROKES) {
+			reset();
+			return;
+		}
+
+		this.strokes[this.strokeCount++] = this.lastAccelerator;
+		if (next.isLeaf()) {
+			System.arraycopy(this.strokes, 0, this.completed, 0, this.strokeCount);
+			this.completedCount = this.strokeCount;
+			reset();
+		} else {
+			this.state = next;
+			ShortcutEvent event = this.pipeline.claim();
+			if (event != null) {
+				try {
+					event.setPartialSequence(this.strokes, this.strokeCount);
+				} finally {
+					this.pipeline.publish(event); // an unpublished slot would stall the pipeline
+				}
+			}
+		}
+	}
+
+	/*
+	 * The same candidates the workbench tries, in the same order
+	 */
+	private BindingTrie.Node findChild(BindingTrie.Node node, Event event) {
+		int accelerator = SWTKeySupport.convertEventToUnmodifiedAccelerator(event);
+		BindingTrie.Node child = node.child(accelerator);
+		if (child == null) {
+			accelerator = SWTKeySupport.convertEventToUnshiftedModifiedAccelerator(event);
+			child = node.child(accelerator);
+		}
+		if (child == null) {
+			accelerator = SWTKeySupport.convertEventToModifiedAccelerator(event);
+			child = node.child(accelerator);
+		}
+		this.lastAccelerator = accelerator;
+		return child;
+	}
+
+	private void reset() {
+		this.state = this.trie.getRoot();
+		this.strokeCount = 0;
+	}
+
+	private void rebuild() {
+		this.rebuildScheduled = false;
+		if (!this.installed) {
+			return;
+		}
+		this.trie = BindingTrie.build(ActiveBindings.get(this.bindingService));
+		reset();
+	}
+
+	private void scheduleRebuild() {
+		if (!this.rebuildScheduled && !this.display.isDisposed()) {
+			this.rebuildScheduled = true;
+			this.display.asyncExec(this.rebuildRunnable);
+		}
+	}
+
+	@Override
+	public void bindingManagerChanged(BindingManagerEvent event) {
+		if (event.isActiveBindingsChanged() || event.isActiveSchemeChanged()) {
+			scheduleRebuild();
+		}
+	}
+
+	@Override
+	public void contextManagerChanged(ContextManagerEvent event) {
+		if (event.isActiveContextsChanged()) {
+			scheduleRebuild();
+		}
+	}
+
+}
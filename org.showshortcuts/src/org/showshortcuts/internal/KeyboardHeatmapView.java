@@ -0,0 +1,333 @@
+package org.showshortcuts.internal;
+
+import java.util.BitSet;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IMenuManager;
+import org.eclipse.jface.bindings.keys.SWTKeySupport;
+import org.eclipse.jface.bindings.keys.formatting.IKeyFormatter;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.widgets.Canvas;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.part.ViewPart;
+import org.showshortcuts.internal.l10n.Messages;
+
+/**
+ * Draws a keyboard and shades each key by how often it appeared in the shown
+ * shortcuts, for all shortcuts or one {@link KeyHeatmap layer}.
+ * <p>
+ * The keyboard is rendered into an off-screen image, which is only rebuilt
+ * when the view is resized or the layer changes. New counts repaint just the
+ * changed keys into the image and copy those areas to the screen, coalesced
+ * over a few milliseconds, so that typing fast does not render the whole
+ * keyboard over and over.
+ *
+ * @author d031150
+ */
+public class KeyboardHeatmapView extends ViewPart implements KeyHeatmap.Listener {
+
+	static final String ID = Activator.PLUGIN_ID + ".keyboardHeatmapView"; //$NON-NLS-1$
+
+	private static final int REPAINT_DELAY = 30;
+	private static final int MARGIN = 8;
+	private static final int GAP = 3;
+	private static final int ARC = 6;
+	private static final RGB COLD = new RGB(255, 236, 179);
+	private static final RGB HOT = new RGB(198, 40, 40);
+
+	private KeyHeatmap heatmap;
+	private ResourceTracker resourceTracker;
+	private Canvas canvas;
+	/** the rendered keyboard, <code>null</code> until painted at the current size */
+	private Image image;
+	private Color[] shades;
+	private String[] labels;
+	private int[] labelWidths;
+	private int labelHeight;
+	/** pixels per quarter key */
+	private int unit;
+	private int layer = KeyHeatmap.LAYER_ALL;
+	private int hoveredKey = -1;
+
+	private final BitSet pendingSlots = new BitSet();
+	private boolean repaintScheduled;
+	private final Runnable repaintRunnable = new Runnable() {
+		@Override
+		public void run() {
+			KeyboardHeatmapView.this.repaintScheduled = false;
+			if (KeyboardHeatmapView.this.canvas != null && !KeyboardHeatmapView.this.canvas.isDisposed()) {
+				repaintPendingKeys();
+			}
+		}
+	};
+
+	@Override
+	public void createPartControl(Composite parent) {
+		this.heatmap = Activator.getDefault().getKeyHeatmap();
+		this.resourceTracker = Activator.getDefault().getResourceTracker();
+		this.canvas = new Canvas(parent, SWT.NO_BACKGROUND);
+		this.shades = createShades(parent.getDisplay());
+		this.labels = createLabels();
+		this.labelWidths = new int[this.labels.length];
+
+		this.canvas.addListener(SWT.Paint, new Listener() {
+			@Override
+			public void handleEvent(Event event) {
+				if (KeyboardHeatmapView.this.image == null) {
+					renderKeyboard();
+				}
+				event.gc.drawImage(KeyboardHeatmapView.this.image, 0, 0);
+			}
+		});
+		this.canvas.addListener(SWT.Resize, new Listener() {
+			@Override
+			public void handleEvent(Event event) {
+				invalidate();
+			}
+		});
+		this.canvas.addListener(SWT.MouseMove, new Listener() {
+			@Override
+			public void handleEvent(Event event) {
+				updateToolTip(event.x, event.y);
+			}
+		});
+
+		IMenuManager menuManager = getViewSite().getActionBars().getMenuManager();
+		IKeyFormatter formatter = SWTKeySupport.getKeyFormatterForPlatform();
+		menuManager.add(new LayerAction(KeyHeatmap.LAYER_ALL, Messages.Heatmap_layerAll_xmen));
+		menuManager.add(new LayerAction(KeyHeatmap.LAYER_PLAIN, Messages.Heatmap_layerPlain_xmen));
+		menuManager.add(new LayerAction(KeyHeatmap.LAYER_CTRL, NLS.bind(Messages.Heatmap_layerModifier_xmen, formatter.format(SWT.CTRL))));
+		menuManager.add(new LayerAction(KeyHeatmap.LAYER_ALT, NLS.bind(Messages.Heatmap_layerModifier_xmen, formatter.format(SWT.ALT))));
+		menuManager.add(new LayerAction(KeyHeatmap.LAYER_SHIFT, NLS.bind(Messages.Heatmap_layerModifier_xmen, formatter.format(SWT.SHIFT))));
+		menuManager.add(new LayerAction(KeyHeatmap.LAYER_COMMAND,
+				NLS.bind(Messages.Heatmap_layerModifier_xmen, formatter.format(SWT.COMMAND))));
+		getViewSite().getActionBars().getToolBarManager().add(new ResetAction());
+
+		this.heatmap.addListener(this);
+	}
+
+	private Color[] createShades(Display display) {
+		Color[] result = new Color[KeyHeatmap.LEVEL_COUNT];
+		result[0] = display.getSystemColor(SWT.COLOR_WIDGET_BACKGROUND);
+		for (int level = 1; level < result.length; level++) {
+			int step = level - 1;
+			int steps = result.length - 2;
+			RGB rgb = new RGB(COLD.red + (HOT.red - COLD.red) * step / steps, COLD.green + (HOT.green - COLD.green) * step / steps,
+					COLD.blue + (HOT.blue - COLD.blue) * step / steps);
+			result[level] = this.resourceTracker.trackResource(this, new Color(display, rgb));
+		}
+		return result;
+	}
+
+	private static String[] createLabels() {
+		IKeyFormatter formatter = SWTKeySupport.getKeyFormatterForPlatform();
+		String[] result = new String[KeyboardLayout.getKeyCount()];
+		for (int key = 0; key < result.length; key++) {
+			result[key] = formatter.format(KeyboardLayout.getCode(key));
+		}
+		return result;
+	}
+
+	@Override
+	public void keysChanged(BitSet slots) {
+		this.pendingSlots.or(slots);
+		if (!this.repaintScheduled && this.canvas != null && !this.canvas.isDisposed()) {
+			this.repaintScheduled = true;
+			this.canvas.getDisplay().timerExec(REPAINT_DELAY, this.repaintRunnable);
+		}
+	}
+
+	/*
+	 * Draws the keys of the pending slots into the image, and only copies their
+	 * areas to the screen
+	 */
+	private void repaintPendingKeys() {
+		if (this.image == null) {
+			this.pendingSlots.clear();
+			return; // the next paint renders all keys
+		}
+		GC gc = this.resourceTracker.trackResource(this, new GC(this.image));
+		try {
+			gc.setFont(this.canvas.getFont());
+			for (int key = 0; key < KeyboardLayout.getKeyCount(); key++) {
+				if (this.pendingSlots.get(KeyboardLayout.getSlot(key))) {
+					drawKey(gc, key);
+					this.canvas.redraw(getKeyX(key), getKeyY(key), getKeyWidth(key), getKeyHeight(), false);
+				}
+			}
+		} finally {
+			this.resourceTracker.dispose(gc);
+		}
+		this.pendingSlots.clear();
+	}
+
+	/*
+	 * Renders the whole keyboard into a new image of the size of the canvas
+	 */
+	private void renderKeyboard() {
+		Rectangle area = this.canvas.getClientArea();
+		int width = Math.max(1, area.width);
+		int height = Math.max(1, area.height);
+		this.unit = Math.max(1, Math.min((width - 2 * MARGIN) / KeyboardLayout.WIDTH, (height - 2 * MARGIN) / KeyboardLayout.HEIGHT));
+		this.image = this.resourceTracker.trackResource(this, new Image(this.canvas.getDisplay(), width, height));
+		this.pendingSlots.clear();
+
+		GC gc = this.resourceTracker.trackResource(this, new GC(this.image));
+		try {
+			gc.setBackground(this.canvas.getDisplay().getSystemColor(SWT.COLOR_LIST_BACKGROUND));
+			gc.fillRectangle(0, 0, width, height);
+			gc.setFont(this.canvas.getFont());
+			this.labelHeight = gc.getFontMetrics().getHeight();
+			for (int key = 0; key < KeyboardLayout.getKeyCount(); key++) {
+				Point extent = gc.textExtent(this.labels[key]);
+				this.labelWidths[key] = extent.x;
+				drawKey(gc, key);
+			}
+		} finally {
+			this.resourceTracker.dispose(gc);
+		}
+	}
+
+	private void drawKey(GC gc, int key) {
+		int level = this.heatmap.getLevel(this.layer, KeyboardLayout.getSlot(key));
+		int x = getKeyX(key);
+		int y = getKeyY(key);
+		int width = getKeyWidth(key);
+		int height = getKeyHeight();
+		Display display = this.canvas.getDisplay();
+
+		gc.setBackground(display.getSystemColor(SWT.COLOR_LIST_BACKGROUND));
+		gc.fillRectangle(x, y, width, height);
+		gc.setBackground(this.shades[level]);
+		gc.fillRoundRectangle(x, y, width - 1, height - 1, ARC, ARC);
+		gc.setForeground(display.getSystemColor(SWT.COLOR_WIDGET_NORMAL_SHADOW));
+		gc.drawRoundRectangle(x, y, width - 1, height - 1, ARC, ARC);
+
+		boolean dark = level > KeyHeatmap.LEVEL_COUNT * 2 / 3;
+		gc.setForeground(display.getSystemColor(dark ? SWT.COLOR_WHITE : SWT.COLOR_WIDGET_FOREGROUND));
+		gc.setClipping(x + 1, y + 1, width - 2, height - 2);
+		gc.drawString(this.labels[key], x + Math.max(2, (width - this.labelWidths[key]) / 2), y + (height - this.labelHeight) / 2, true);
+		gc.setClipping((Rectangle) null);
+	}
+
+	private int getKeyX(int key) {
+		return MARGIN + KeyboardLayout.getX(key) * this.unit;
+	}
+
+	private int getKeyY(int key) {
+		return MARGIN + KeyboardLayout.getY(key) * this.unit;
+	}
+
+	private int getKeyWidth(int key) {
+		return KeyboardLayout.getWidth(key) * this.unit - GAP;
+	}
+
+	private int getKeyHeight() {
+		return 4 * this.unit - GAP;
+	}
+
+	private void updateToolTip(int x, int y) {
+		int hit = -1;
+		if (this.image != null) {
+			for (int key = 0; key < KeyboardLayout.getKeyCount(); key++) {
+				int keyX = getKeyX(key);
+				int keyY = getKeyY(key);
+				if (x >= keyX && x < keyX + getKeyWidth(key) && y >= keyY && y < keyY + getKeyHeight()) {
+					hit = key;
+					break;
+				}
+			}
+		}
+		if (hit == this.hoveredKey) {
+			return;
+		}
+		this.hoveredKey = hit;
+		this.canvas.setToolTipText(hit < 0 ? null : NLS.bind(Messages.Heatmap_keyCount_xtol, this.labels[hit],
+				Long.valueOf(this.heatmap.getCount(this.layer, KeyboardLayout.getSlot(hit)))));
+	}
+
+	/*
+	 * Drops the image, so that the next paint renders all keys
+	 */
+	private void invalidate() {
+		if (this.image != null) {
+			this.resourceTracker.dispose(this.image);
+			this.image = null;
+		}
+		this.hoveredKey = -1;
+		this.canvas.redraw();
+	}
+
+	@Override
+	public void setFocus() {
+		this.canvas.setFocus();
+	}
+
+	@Override
+	public void dispose() {
+		if (this.heatmap != null) {
+			this.heatmap.removeListener(this);
+		}
+		if (this.canvas != null && !this.canvas.isDisposed()) {
+			this.canvas.getDisplay().timerExec(-1, this.repaintRunnable);
+		}
+		if (this.image != null) {
+			this.resourceTracker.dispose(this.image);
+			this.image = null;
+		}
+		if (this.shades != null) {
+			for (int level = 1; level < this.shades.length; level++) {
+				this.resourceTracker.dispose(this.shades[level]);
+			}
+			this.shades = null;
+		}
+		if (this.resourceTracker != null) {
+			this.resourceTracker.reportLeaks(this, "heatmap view dispose"); //$NON-NLS-1$
+		}
+		super.dispose();
+	}
+
+	private final class LayerAction extends Action {
+		private final int actionLayer;
+
+		LayerAction(int layer, String text) {
+			super(text, AS_RADIO_BUTTON);
+			this.actionLayer = layer;
+			setChecked(layer == KeyboardHeatmapView.this.layer);
+		}
+
+		@Override
+		public void run() {
+			if (isChecked() && KeyboardHeatmapView.this.layer != this.actionLayer) {
+				KeyboardHeatmapView.this.layer = this.actionLayer;
+				invalidate();
+			}
+		}
+	}
+
+	private final class ResetAction extends Action {
+		ResetAction() {
+			super(Messages.Heatmap_reset_xtol, AS_PUSH_BUTTON);
+			setToolTipText(Messages.Heatmap_reset_xtol);
+			setImageDescriptor(PlatformUI.getWorkbench().getSharedImages().getImageDescriptor(ISharedImages.IMG_ETOOL_CLEAR));
+		}
+
+		@Override
+		public void run() {
+			KeyboardHeatmapView.this.heatmap.clear();
+		}
+	}
+
+}
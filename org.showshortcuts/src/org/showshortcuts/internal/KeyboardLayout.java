@@ -0,0 +1,167 @@
+package org.showshortcuts.internal;
+
+import java.util.Arrays;
+
+import org.eclipse.swt.SWT;
+
+/**
+ * A US keyboard with function keys and a navigation block. Keys are placed
+ * in units of a quarter key on a grid 74 units wide and 25 high. Keys with
+ * the same code, like both shift keys, share a slot, and characters typed
+ * with shift, like <code>'!'</code>, count for their unshifted key.
+ *
+ * @author d031150
+ */
+final class KeyboardLayout {
+
+	static final int WIDTH = 74;
+	static final int HEIGHT = 25;
+
+	private static final String SHIFTED = "~!@#$%^&*()_+{}|:\"<>?"; //$NON-NLS-1$
+	private static final String UNSHIFTED = "`1234567890-=[]\\;',./"; //$NON-NLS-1$
+
+	private static final int MAX_KEYS = 96;
+	private static final int[] CODES = new int[MAX_KEYS];
+	private static final int[] X = new int[MAX_KEYS];
+	private static final int[] Y = new int[MAX_KEYS];
+	private static final int[] WIDTHS = new int[MAX_KEYS];
+	private static final int[] SLOTS;
+	private static final int[] SLOT_CODES;
+	private static int keyCount;
+
+	static {
+		int y = 0;
+		add(SWT.ESC, 0, y, 4);
+		addRange(SWT.F1, 4, 8, y);
+		addRange(SWT.F5, 4, 26, y);
+		addRange(SWT.F9, 4, 44, y);
+
+		y = 5;
+		addChars("`1234567890-=", 0, y); //$NON-NLS-1$
+		add(SWT.BS, 52, y, 8);
+		add(SWT.INSERT, 62, y, 4);
+		add(SWT.HOME, 66, y, 4);
+		add(SWT.PAGE_UP, 70, y, 4);
+
+		y = 9;
+		add(SWT.TAB, 0, y, 6);
+		addChars("QWERTYUIOP[]", 6, y); //$NON-NLS-1$
+		add('\\', 54, y, 6);
+		add(SWT.DEL, 62, y, 4);
+		add(SWT.END, 66, y, 4);
+		add(SWT.PAGE_DOWN, 70, y, 4);
+
+		y = 13;
+		add(SWT.CAPS_LOCK, 0, y, 7);
+		addChars("ASDFGHJKL;'", 7, y); //$NON-NLS-1$
+		add(SWT.CR, 51, y, 9);
+
+		y = 17;
+		add(SWT.SHIFT, 0, y, 9);
+		addChars("ZXCVBNM,./", 9, y); //$NON-NLS-1$
+		add(SWT.SHIFT, 49, y, 11);
+		add(SWT.ARROW_UP, 66, y, 4);
+
+		y = 21;
+		add(SWT.CTRL, 0, y, 5);
+		add(SWT.COMMAND, 5, y, 5);
+		add(SWT.ALT, 10, y, 5);
+		add(' ', 15, y, 30);
+		add(SWT.ALT, 45, y, 5);
+		add(SWT.COMMAND, 50, y, 5);
+		add(SWT.CTRL, 55, y, 5);
+		add(SWT.ARROW_LEFT, 62, y, 4);
+		add(SWT.ARROW_DOWN, 66, y, 4);
+		add(SWT.ARROW_RIGHT, 70, y, 4);
+
+		int[] codes = Arrays.copyOf(CODES, keyCount);
+		Arrays.sort(codes);
+		int distinct = 0;
+		for (int i = 0; i < codes.length; i++) {
+			if (i == 0 || codes[i] != codes[i - 1]) {
+				codes[distinct++] = codes[i];
+			}
+		}
+		SLOT_CODES = Arrays.copyOf(codes, distinct);
+		SLOTS = new int[keyCount];
+		for (int i = 0; i < keyCount; i++) {
+			SLOTS[i] = Arrays.binarySearch(SLOT_CODES, CODES[i]);
+		}
+	}
+
+	private KeyboardLayout() {
+	}
+
+	private static void add(int code, int x, int y, int width) {
+		CODES[keyCount] = code;
+		X[keyCount] = x;
+		Y[keyCount] = y;
+		WIDTHS[keyCount] = width;
+		keyCount++;
+	}
+
+	private static void addRange(int firstCode, int count, int x, int y) {
+		for (int i = 0; i < count; i++) {
+			add(firstCode + i, x + 4 * i, y, 4);
+		}
+	}
+
+	private static void addChars(String chars, int x, int y) {
+		for (int i = 0; i < chars.length(); i++) {
+			add(chars.charAt(i), x + 4 * i, y, 4);
+		}
+	}
+
+	/**
+	 * @return the number of keys drawn
+	 */
+	static int getKeyCount() {
+		return keyCount;
+	}
+
+	/**
+	 * @return the number of distinct key codes
+	 */
+	static int getSlotCount() {
+		return SLOT_CODES.length;
+	}
+
+	static int getCode(int key) {
+		return CODES[key];
+	}
+
+	static int getSlot(int key) {
+		return SLOTS[key];
+	}
+
+	static int getX(int key) {
+		return X[key];
+	}
+
+	static int getY(int key) {
+		return Y[key];
+	}
+
+	static int getWidth(int key) {
+		return WIDTHS[key];
+	}
+
+	/**
+	 * Returns the slot of a natural key or modifier
+	 *
+	 * @param code
+	 *            a natural key as in {@link SWT#KEY_MASK}, or a single
+	 *            modifier
+	 * @return the slot, or <code>-1</code> if the key is not on the keyboard
+	 */
+	static int getSlotForCode(int code) {
+		if (code <= Character.MAX_VALUE) {
+			char c = Character.toUpperCase((char) code);
+			int shifted = SHIFTED.indexOf(c);
+			code = shifted >= 0 ? UNSHIFTED.charAt(shifted) : c;
+		}
+		int slot = Arrays.binarySearch(SLOT_CODES, code);
+		return slot >= 0 ? slot : -1;
+	}
+
+}
@@ -0,0 +1,71 @@
+package org.showshortcuts.internal;
+
+/**
+ * Histogram of latencies with logarithmic buckets. Bucket <code>i</code>
+ * counts latencies in <code>[2^i, 2^(i+1))</code> microseconds, which keeps
+ * the histogram small and of constant size while still telling 1ms from
+ * 1s apart. Thread-safe.
+ *
+ * @author d031150
+ */
+public final class LatencyHistogram {
+
+	private static final int BUCKET_COUNT = 40;
+
+	private final long[] buckets = new long[BUCKET_COUNT];
+	private long count;
+	private long totalNanos;
+	private long maxNanos;
+
+	/**
+	 * Adds a latency
+	 *
+	 * @param nanos
+	 *            the latency in nanoseconds
+	 */
+	public synchronized void record(long nanos) {
+		long micros = Math.max(1, nanos / 1000);
+		int bucket = Math.min(BUCKET_COUNT - 1, 63 - Long.numberOfLeadingZeros(micros));
+		this.buckets[bucket]++;
+		this.count++;
+		this.totalNanos += nanos;
+		this.maxNanos = Math.max(this.maxNanos, nanos);
+	}
+
+	public synchronized long getCount() {
+		return this.count;
+	}
+
+	public synchronized double getMeanMillis() {
+		return this.count == 0 ? 0 : this.totalNanos / 1e6 / this.count;
+	}
+
+	public synchronized double getMaxMillis() {
+		return this.maxNanos / 1e6;
+	}
+
+	/**
+	 * Returns an upper bound of the given percentile, i.e. the upper end of
+	 * the bucket it falls into, capped by the maximum
+	 *
+	 * @param percentile
+	 *            the percentile between <code>0</code> and <code>1</code>
+	 * @return the latency in milliseconds
+	 */
+	public synchronized double getPercentileMillis(double percentile) {
+		if (this.count == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(percentile * this.count);
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += this.buckets[i];
+			if (seen >= rank) {
+				double upperMillis = (1L << (i + 1)) / 1e3;
+				return Math.min(upperMillis, getMaxMillis());
+			}
+		}
+		return getMaxMillis();
+	}
+
+}
@@ -0,0 +1,106 @@
+package org.showshortcuts.internal;
+
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_TIME_TO_CLOSE;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+import org.showshortcuts.core.EventSink;
+import org.showshortcuts.core.ShortcutEvent;
+import org.showshortcuts.internal.l10n.Messages;
+
+/**
+ * Shows the events of the pipeline as popups in the active workbench window,
+ * or renders them into frames for videos instead, and records them if a
+ * session is being recorded. A popup would immediately
+ * be replaced by the next one, so only the last event of each batch is shown.
+ * Its texts are kept until the end of the batch, as the event itself is
+ * reused. Must only be used on the UI thread.
+ *
+ * @author d031150
+ */
+public final class PopupSink implements EventSink {
+
+	private final ShortcutPopupManager popupManager;
+	private final IPreferenceStore store;
+	private SessionRecorder sessionRecorder;
+	private FrameRecorder frameRecorder;
+
+	private boolean pending;
+	private boolean replay;
+	private long time;
+	private String commandId;
+	private String shortcut;
+	private String name;
+	private String description;
+
+	public PopupSink(ShortcutPopupManager popupManager, IPreferenceStore store) {
+		this.popupManager = popupManager;
+		this.store = store;
+	}
+
+	/**
+	 * @param recorder
+	 *            the recorder of the shown popups, or <code>null</code>
+	 */
+	public void setSessionRecorder(SessionRecorder recorder) {
+		this.sessionRecorder = recorder;
+	}
+
+	/**
+	 * @param recorder
+	 *            the renderer of popups into frames, which replaces the
+	 *            popups, or <code>null</code> to show them
+	 */
+	public void setFrameRecorder(FrameRecorder recorder) {
+		this.frameRecorder = recorder;
+	}
+
+	@Override
+	public void accept(ShortcutEvent event) {
+		this.pending = true;
+		this.replay = event.getKind() == ShortcutEvent.KIND_REPLAY;
+		this.time = event.getTime();
+		this.commandId = event.getCommandId();
+		this.shortcut = event.getFormattedShortcut();
+		this.description = event.getDescription();
+		switch (event.getKind()) {
+		case ShortcutEvent.KIND_KEY:
+			this.name = event.hasKey() ? Messages.Popup_keyWithoutCommand_xmsg : Messages.Popup_modifierKeys_xmsg;
+			break;
+		case ShortcutEvent.KIND_PARTIAL_SEQUENCE:
+			this.name = Messages.Popup_partialSequence_xmsg;
+			break;
+		default:
+			this.name = event.getName();
+			break;
+		}
+	}
+
+	@Override
+	public void endOfBatch() {
+		if (!this.pending) {
+			return;
+		}
+		this.pending = false;
+		IWorkbench workbench = PlatformUI.getWorkbench();
+		IWorkbenchWindow window = workbench.getActiveWorkbenchWindow();
+		if (window != null || this.frameRecorder != null) {
+			if (this.sessionRecorder != null && !this.replay) {
+				this.sessionRecorder.record(this.time, this.commandId, this.shortcut, this.name, this.description);
+			}
+			int timeToClose = this.store.getInt(PREF_KEY_TIME_TO_CLOSE);
+			if (this.frameRecorder != null) {
+				this.frameRecorder.render(this.time, this.shortcut, this.name, this.description, timeToClose);
+			} else {
+				this.popupManager.show(window, this.shortcut, this.name, this.description, timeToClose);
+			}
+		}
+		this.commandId = null;
+		this.shortcut = null;
+		this.name = null;
+		this.description = null;
+	}
+
+}
@@ -0,0 +1,50 @@
+package org.showshortcuts.internal;
+
+import java.io.File;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.ui.handlers.HandlerUtil;
+import org.showshortcuts.core.HistoryWriter;
+
+/**
+ * Asks for a session file and plays it back. The speed factor is taken from
+ * the command parameter {@value #PARAM_SPEED}.
+ *
+ * @author d031150
+ */
+public class ReplaySessionHandler extends AbstractHandler {
+
+	static final String PARAM_SPEED = Activator.PLUGIN_ID + ".replaySession.speed"; //$NON-NLS-1$
+
+	@Override
+	public Object execute(ExecutionEvent event) throws ExecutionException {
+		FileDialog dialog = new FileDialog(HandlerUtil.getActiveShellChecked(event), SWT.OPEN);
+		dialog.setFilterExtensions(new String[] { "*" + HistoryWriter.FILE_EXTENSION, "*.*" }); //$NON-NLS-1$ //$NON-NLS-2$
+		dialog.setFilterPath(Activator.getDefault().getSessionDirectory().getAbsolutePath());
+		String path = dialog.open();
+		if (path == null) {
+			return null;
+		}
+
+		int speed = 1;
+		String speedParam = event.getParameter(PARAM_SPEED);
+		if (speedParam != null) {
+			try {
+				speed = Integer.parseInt(speedParam);
+			} catch (NumberFormatException e) {
+				throw new ExecutionException("Invalid speed " + speedParam, e); //$NON-NLS-1$
+			}
+		}
+
+		// one playback at a time
+		Job.getJobManager().cancel(SessionPlayer.FAMILY);
+		new SessionPlayer(new File(path), speed, Activator.getDefault().getPipeline()).schedule();
+		return null;
+	}
+
+}
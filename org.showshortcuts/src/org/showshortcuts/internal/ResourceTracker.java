@@ -0,0 +1,199 @@
+package org.showshortcuts.internal;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Cursor;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Resource;
+import org.eclipse.swt.widgets.Menu;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Tracker;
+import org.eclipse.swt.widgets.Widget;
+
+/**
+ * Accounting of the native resources created by the plug-in. Every font,
+ * image, GC, menu, shell etc. is registered along with its owner, so that live
+ * handles can be counted and those that outlive their owner can be reported
+ * as leaks. If enabled via the <code>/debug/resources</code> trace option,
+ * the allocation site of each resource is recorded as well.
+ *
+ * @author d031150
+ */
+public final class ResourceTracker {
+
+	/**
+	 * Kinds of tracked resources
+	 */
+	public enum Kind {
+		FONT, IMAGE, COLOR, CURSOR, GC, MENU, SHELL, TRACKER, OTHER
+	}
+
+	private final int[] liveCounts = new int[Kind.values().length];
+	private final Map<Object, Allocation> allocations = new IdentityHashMap<Object, Allocation>();
+	private final DisposeListener disposeListener = new DisposeListener() {
+		@Override
+		public void widgetDisposed(DisposeEvent e) {
+			untrack(e.widget);
+		}
+	};
+	private volatile boolean recordAllocationSites;
+
+	/**
+	 * Enables or disables recording of allocation sites. Only affects resources
+	 * tracked afterwards.
+	 *
+	 * @param record
+	 *            whether to record the allocation sites
+	 */
+	public void setRecordAllocationSites(boolean record) {
+		this.recordAllocationSites = record;
+	}
+
+	/**
+	 * Registers a resource. It must be released with
+	 * {@link #dispose(Resource)}.
+	 *
+	 * @param owner
+	 *            the object responsible for disposing the resource
+	 * @param resource
+	 *            the resource
+	 * @return the resource
+	 */
+	public <T extends Resource> T trackResource(Object owner, T resource) {
+		track(owner, resource, kindOf(resource));
+		return resource;
+	}
+
+	/**
+	 * Registers a widget. It is unregistered automatically once it is
+	 * disposed.
+	 *
+	 * @param owner
+	 *            the object responsible for disposing the widget
+	 * @param widget
+	 *            the widget
+	 * @return the widget
+	 */
+	public <T extends Widget> T trackWidget(Object owner, T widget) {
+		track(owner, widget, kindOf(widget));
+		widget.addDisposeListener(this.disposeListener);
+		return widget;
+	}
+
+	/**
+	 * Unregisters and disposes a resource
+	 *
+	 * @param resource
+	 *            the resource
+	 */
+	public void dispose(Resource resource) {
+		untrack(resource);
+		resource.dispose();
+	}
+
+	/**
+	 * Returns the number of live resources of the given kind
+	 *
+	 * @param kind
+	 *            the kind
+	 * @return the number of tracked resources not yet disposed
+	 */
+	public synchronized int getLiveCount(Kind kind) {
+		return this.liveCounts[kind.ordinal()];
+	}
+
+	/**
+	 * Logs a warning for each resource of the given owner that is still live
+	 *
+	 * @param owner
+	 *            the owner, or <code>null</code> to report all live resources
+	 * @param context
+	 *            describes the point in time of the check, e.g.
+	 *            <code>"popup closed"</code>
+	 * @return the number of leaks
+	 */
+	public int reportLeaks(Object owner, String context) {
+		List<Allocation> leaks = new ArrayList<Allocation>();
+		synchronized (this) {
+			for (Allocation allocation : this.allocations.values()) {
+				if (owner == null || allocation.owner == owner) {
+					leaks.add(allocation);
+				}
+			}
+		}
+		for (Allocation leak : leaks) {
+			String message = MessageFormat.format("Leaked {0} of {1} detected on {2}", //$NON-NLS-1$
+					leak.kind, leak.owner.getClass().getName(), context);
+			Activator.log(new Status(IStatus.WARNING, Activator.PLUGIN_ID, message, leak.site));
+		}
+		return leaks.size();
+	}
+
+	private synchronized void track(Object owner, Object resource, Kind kind) {
+		Throwable site = this.recordAllocationSites ? new Throwable("Allocation site") : null; //$NON-NLS-1$
+		if (this.allocations.put(resource, new Allocation(kind, owner, site)) == null) {
+			this.liveCounts[kind.ordinal()]++;
+		}
+	}
+
+	private synchronized void untrack(Object resource) {
+		Allocation allocation = this.allocations.remove(resource);
+		if (allocation != null) {
+			this.liveCounts[allocation.kind.ordinal()]--;
+		}
+	}
+
+	private static Kind kindOf(Object resource) {
+		if (resource instanceof Font) {
+			return Kind.FONT;
+		} else if (resource instanceof Image) {
+			return Kind.IMAGE;
+		} else if (resource instanceof Color) {
+			return Kind.COLOR;
+		} else if (resource instanceof Cursor) {
+			return Kind.CURSOR;
+		} else if (resource instanceof GC) {
+			return Kind.GC;
+		} else if (resource instanceof Menu) {
+			return Kind.MENU;
+		} else if (resource instanceof Shell) {
+			return Kind.SHELL;
+		} else if (resource instanceof Tracker) {
+			return Kind.TRACKER;
+		}
+		return Kind.OTHER;
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder result = new StringBuilder("Live resources:"); //$NON-NLS-1$
+		for (Kind kind : Kind.values()) {
+			result.append(' ').append(kind).append('=').append(this.liveCounts[kind.ordinal()]);
+		}
+		return result.toString();
+	}
+
+	private static final class Allocation {
+		final Kind kind;
+		final Object owner;
+		final Throwable site;
+
+		Allocation(Kind kind, Object owner, Throwable site) {
+			this.kind = kind;
+			this.owner = owner;
+			this.site = site;
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+package org.showshortcuts.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.text.MessageFormat;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.showshortcuts.core.EventPipeline;
+import org.showshortcuts.core.HistoryReader;
+import org.showshortcuts.core.ShortcutEvent;
+import org.showshortcuts.internal.l10n.Messages;
+
+/**
+ * Plays back a recorded session with its original timing, optionally sped up.
+ * Records are streamed from the file one at a time and handed to the plug-in's
+ * {@link EventPipeline} when due, so memory use does not depend on the
+ * length of the session. Cancel the job to stop the playback.
+ *
+ * @author d031150
+ */
+public final class SessionPlayer extends Job {
+
+	/** Job family of all players */
+	public static final Object FAMILY = SessionPlayer.class;
+
+	private static final long MAX_SLEEP_MILLIS = 100;
+
+	private final File file;
+	private final int speed;
+	private final EventPipeline pipeline;
+
+	/**
+	 * @param file
+	 *            the session file
+	 * @param speed
+	 *            the speed factor, e.g. <code>2</code> to play twice as fast
+	 * @param pipeline
+	 *            where to send the replayed popups to
+	 */
+	public SessionPlayer(File file, int speed, EventPipeline pipeline) {
+		super(MessageFormat.format(Messages.SessionPlayer_job_xmsg, file.getName(), speed));
+		this.file = file;
+		this.speed = Math.max(1, speed);
+		this.pipeline = pipeline;
+	}
+
+	@Override
+	public boolean belongsTo(Object family) {
+		return family == FAMILY;
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		monitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
+		HistoryReader reader = null;
+		try {
+			reader = new HistoryReader(new FileInputStream(this.file), this.file.getPath());
+			long firstRecordTime = -1;
+			long startNanos = System.nanoTime();
+			while (reader.next()) {
+				if (firstRecordTime < 0) {
+					firstRecordTime = reader.getTime();
+				}
+				long dueNanos = startNanos + (reader.getTime() - firstRecordTime) * 1000000L / this.speed;
+				if (!sleepUntil(dueNanos, monitor)) {
+					return Status.CANCEL_STATUS;
+				}
+				ShortcutEvent event = this.pipeline.claim();
+				if (event != null) {
+					event.setReplay(reader.getShortcut(), reader.getName(), reader.getDescription());
+					this.pipeline.publish(event);
+				}
+				monitor.worked(1);
+			}
+			return Status.OK_STATUS;
+		} catch (IOException e) {
+			return new Status(IStatus.ERROR, Activator.PLUGIN_ID, e.getMessage(), e);
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
+			monitor.done();
+		}
+	}
+
+	private static boolean sleepUntil(long dueNanos, IProgressMonitor monitor) {
+		long remainingMillis;
+		while ((remainingMillis = (dueNanos - System.nanoTime()) / 1000000L) > 0) {
+			if (monitor.isCanceled()) {
+				return false;
+			}
+			try {
+				Thread.sleep(Math.min(remainingMillis, MAX_SLEEP_MILLIS));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return !monitor.isCanceled();
+	}
+
+}
@@ -0,0 +1,87 @@
+package org.showshortcuts.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.showshortcuts.core.HistoryWriter;
+
+/**
+ * Records the shown popups to a session file, which can be played back by the
+ * {@link SessionPlayer} and combined with the sessions of other instances by
+ * the {@link org.showshortcuts.core.HistoryMerger}. Session files are history
+ * files in the compact binary format described in {@link HistoryWriter}, with
+ * one record per popup.
+ *
+ * @author d031150
+ */
+public final class SessionRecorder {
+
+	private final File file;
+	private HistoryWriter writer;
+
+	private SessionRecorder(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Creates a recorder for a new session file in the given directory, named
+	 * after the current time
+	 *
+	 * @param directory
+	 *            the directory, created if needed
+	 * @return the recorder
+	 */
+	public static SessionRecorder create(File directory) {
+		String name = "session-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + HistoryWriter.FILE_EXTENSION; //$NON-NLS-1$ //$NON-NLS-2$
+		return new SessionRecorder(new File(directory, name));
+	}
+
+	/**
+	 * Appends a popup to the session. I/O errors are logged and stop the
+	 * recording.
+	 *
+	 * @param time
+	 *            the time the popup was triggered
+	 * @param commandId
+	 *            the id of the command, or <code>null</code> for keys without
+	 *            a command
+	 * @param shortcut
+	 *            the formatted shortcut
+	 * @param name
+	 *            the command name
+	 * @param description
+	 *            the command description or <code>null</code>
+	 */
+	public void record(long time, String commandId, String shortcut, String name, String description) {
+		try {
+			if (this.writer == null) {
+				this.file.getParentFile().mkdirs();
+				this.writer = new HistoryWriter(new FileOutputStream(this.file));
+			}
+			this.writer.write(time, commandId, shortcut, name, description);
+			// popups come at human speed, and the file should be usable while recording
+			this.writer.flush();
+		} catch (IOException e) {
+			Activator.log(e);
+			close();
+		}
+	}
+
+	/**
+	 * Closes the session file
+	 */
+	public void close() {
+		if (this.writer != null) {
+			try {
+				this.writer.close();
+			} catch (IOException e) {
+				Activator.log(e);
+			}
+			this.writer = null;
+		}
+	}
+
+}
@@ -23,6 +23,7 @@ import org.eclipse.swt.graphics.FontData;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.graphics.Resource;
+import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
@@ -47,15 +48,25 @@ public class ShortcutPopup extends Window {
 	private static final int MARGIN_RIGHT = 23;
 	private static final String DIALOG_OFFSET_RIGHT = "offsetRight"; //$NON-NLS-1$
 	private static final String DIALOG_OFFSET_TOP = "offsetTop"; //$NON-NLS-1$
-	private static final String POPUP_COLOR_BG = Activator.PLUGIN_ID + ".popup.backgroundColor"; //$NON-NLS-1$
-	private static final String POPUP_COLOR_FG = Activator.PLUGIN_ID + ".popup.foregroundColor"; //$NON-NLS-1$
-	private static final String POPUP_FONT = Activator.PLUGIN_ID + ".popup.font"; //$NON-NLS-1$
-	private static final int POPUP_FONT_SIZEFACTOR_KEY_LABEL = 2;
-	private static final int POPUP_FONT_SIZEFACTOR_KEY = POPUP_FONT_SIZEFACTOR_KEY_LABEL + 1;
+	static final String POPUP_COLOR_BG = Activator.PLUGIN_ID + ".popup.backgroundColor"; //$NON-NLS-1$
+	static final String POPUP_COLOR_FG = Activator.PLUGIN_ID + ".popup.foregroundColor"; //$NON-NLS-1$
+	static final String POPUP_FONT = Activator.PLUGIN_ID + ".popup.font"; //$NON-NLS-1$
+	static final int POPUP_FONT_SIZEFACTOR_KEY_LABEL = 2;
+	static final int POPUP_FONT_SIZEFACTOR_KEY = POPUP_FONT_SIZEFACTOR_KEY_LABEL + 1;
 
 	private final List<Resource> resources = new ArrayList<Resource>(3);
+	private final List<MenuManager> menuManagers = new ArrayList<MenuManager>(3);
+	private final ResourceTracker resourceTracker;
 	private final Listener moveListener = new MoveListener();
-	private final int timeToClose;
+	private final Runnable hideRunnable = new Runnable() {
+		@Override
+		public void run() {
+			if (ShortcutPopup.this.readyToClose) {
+				hide();
+			}
+		}
+	};
+	private int timeToClose;
 	private String shortcut;
 	private Label shortcutLabel;
 	private String shortcutName;
@@ -67,13 +78,31 @@ public class ShortcutPopup extends Window {
 	public ShortcutPopup(Shell parentShell, int timeToClose) {
 		super(parentShell);
 		this.timeToClose = timeToClose;
+		this.resourceTracker = Activator.getDefault().getResourceTracker();
 		setShellStyle((SWT.NO_TRIM | SWT.ON_TOP | SWT.TOOL) & ~SWT.APPLICATION_MODAL);
 	}
 
+	public void setTimeToClose(int timeToClose) {
+		this.timeToClose = timeToClose;
+	}
+
+	/**
+	 * Sets the texts to show. If the popup is open already, its labels are
+	 * updated in place.
+	 */
 	public void setShortcut(String shortcut, String shortcutText, String shcortcutDescription) {
 		this.shortcut = shortcut;
 		this.shortcutName = shortcutText;
 		this.shortcutDescription = shcortcutDescription;
+
+		Shell shell = getShell();
+		if (shell != null && !shell.isDisposed()) {
+			updateLabels();
+			// keep the right edge, which is where the popup is anchored
+			Rectangle bounds = shell.getBounds();
+			Point size = shell.computeSize(SWT.DEFAULT, SWT.DEFAULT, true);
+			shell.setBounds(bounds.x + bounds.width - size.x, bounds.y, size.x, size.y);
+		}
 	}
 
 	@Override
@@ -86,6 +115,9 @@ public class ShortcutPopup extends Window {
 			// create the window
 			create();
 			shell = getShell();
+		} else if (!shell.isVisible()) {
+			// the parent may have moved or been resized since the popup was hidden
+			shell.setLocation(getInitialLocation(shell.getSize()));
 		}
 
 		// limit the shell size to the display size
@@ -96,20 +128,27 @@ public class ShortcutPopup extends Window {
 		return OK;
 	}
 
+	/**
+	 * Hides the popup, keeping its widgets for the next {@link #open()}
+	 */
+	void hide() {
+		Shell shell = getShell();
+		if (shell != null && !shell.isDisposed() && shell.isVisible()) {
+			saveDialogBounds(shell);
+			shell.setVisible(false);
+		}
+	}
+
 	private void scheduleClose() {
 		this.readyToClose = true;
-		Display.getDefault().timerExec(this.timeToClose, new Runnable() {
-			@Override
-			public void run() {
-				if (ShortcutPopup.this.readyToClose && getShell() != null && !getShell().isDisposed()) {
-					close();
-				}
-			}
-		});
+		// reschedules the pending timer, if any
+		Display.getDefault().timerExec(this.timeToClose, this.hideRunnable);
 	}
 
 	@Override
 	public boolean close() {
+		Display.getDefault().timerExec(-1, this.hideRunnable);
+
 		// If already closed, there is nothing to do.
 		// See https://bugs.eclipse.org/bugs/show_bug.cgi?id=127505
 		Shell shell = getShell();
@@ -120,9 +159,18 @@ public class ShortcutPopup extends Window {
 		boolean closed = super.close();
 
 		for (Resource resource : this.resources) {
-			resource.dispose();
+			this.resourceTracker.dispose(resource);
 		}
 		this.resources.clear();
+		for (MenuManager menuManager : this.menuManagers) {
+			menuManager.dispose();
+		}
+		this.menuManagers.clear();
+
+		if (closed) {
+			this.resourceTracker.reportLeaks(this, "popup close"); //$NON-NLS-1$
+			Activator.traceResources(this.resourceTracker.toString());
+		}
 
 		return closed;
 	}
@@ -148,6 +196,7 @@ public class ShortcutPopup extends Window {
 	@Override
 	protected void configureShell(Shell newShell) {
 		super.configureShell(newShell);
+		this.resourceTracker.trackWidget(this, newShell);
 
 		Color color = JFaceResources.getColorRegistry().get(POPUP_COLOR_BG);
 		newShell.setBackground(color);
@@ -169,52 +218,62 @@ public class ShortcutPopup extends Window {
 		this.shortcutLabel = new Label(contents, SWT.CENTER);
 		GridDataFactory.fillDefaults().align(SWT.CENTER, SWT.CENTER).applyTo(this.shortcutLabel);
 		FontData fontData = new FontData(defaultFontData[0].getName(), defaultFontData[0].getHeight() * POPUP_FONT_SIZEFACTOR_KEY, SWT.BOLD);
-		Font shortcutFont = new Font(getShell().getDisplay(), fontData);
+		Font shortcutFont = this.resourceTracker.trackResource(this, new Font(getShell().getDisplay(), fontData));
 		this.resources.add(shortcutFont);
 		this.shortcutLabel.setBackground(parent.getBackground());
 		this.shortcutLabel.setForeground(foregroundColor);
 		this.shortcutLabel.setFont(shortcutFont);
-		this.shortcutLabel.setText(this.shortcut);
 		hookDoubleClickListener(this.shortcutLabel);
 		hookPopupMenu(this.shortcutLabel);
 
 		this.shortcutNameLabel = new Label(contents, SWT.CENTER);
 		GridDataFactory.fillDefaults().align(SWT.CENTER, SWT.CENTER).applyTo(this.shortcutNameLabel);
 		fontData = new FontData(defaultFontData[0].getName(), defaultFontData[0].getHeight() * POPUP_FONT_SIZEFACTOR_KEY_LABEL, SWT.NORMAL);
-		shortcutFont = new Font(getShell().getDisplay(), fontData);
+		shortcutFont = this.resourceTracker.trackResource(this, new Font(getShell().getDisplay(), fontData));
 		this.resources.add(shortcutFont);
 		this.shortcutNameLabel.setFont(shortcutFont);
 		this.shortcutNameLabel.setBackground(parent.getBackground());
 		this.shortcutNameLabel.setForeground(foregroundColor);
-		this.shortcutNameLabel.setText(this.shortcutName);
 		hookDoubleClickListener(this.shortcutNameLabel);
 		hookPopupMenu(this.shortcutNameLabel);
 
-		if (this.shortcutDescription != null) {
-			this.shortcutDescriptionLabel = new Label(contents, SWT.CENTER);
-			GridDataFactory.fillDefaults().align(SWT.CENTER, SWT.CENTER).applyTo(this.shortcutDescriptionLabel);
-			fontData = new FontData(defaultFontData[0].getName(), (int) (defaultFontData[0].getHeight() * 1.3), SWT.NORMAL);
-			shortcutFont = new Font(getShell().getDisplay(), fontData);
-			this.resources.add(shortcutFont);
-			this.shortcutDescriptionLabel.setFont(shortcutFont);
-			this.shortcutDescriptionLabel.setBackground(parent.getBackground());
-			this.shortcutDescriptionLabel.setForeground(foregroundColor);
-			this.shortcutDescriptionLabel.setText(this.shortcutDescription);
-			hookDoubleClickListener(this.shortcutDescriptionLabel);
-			hookPopupMenu(this.shortcutDescriptionLabel);
-		}
+		// created even without description, so that the popup can be reused for other commands
+		this.shortcutDescriptionLabel = new Label(contents, SWT.CENTER);
+		GridDataFactory.fillDefaults().align(SWT.CENTER, SWT.CENTER).applyTo(this.shortcutDescriptionLabel);
+		fontData = new FontData(defaultFontData[0].getName(), (int) (defaultFontData[0].getHeight() * 1.3), SWT.NORMAL);
+		shortcutFont = this.resourceTracker.trackResource(this, new Font(getShell().getDisplay(), fontData));
+		this.resources.add(shortcutFont);
+		this.shortcutDescriptionLabel.setFont(shortcutFont);
+		this.shortcutDescriptionLabel.setBackground(parent.getBackground());
+		this.shortcutDescriptionLabel.setForeground(foregroundColor);
+		hookDoubleClickListener(this.shortcutDescriptionLabel);
+		hookPopupMenu(this.shortcutDescriptionLabel);
+
+		updateLabels();
 
 		return contents;
 	}
 
+	private void updateLabels() {
+		this.shortcutLabel.setText(this.shortcut);
+		this.shortcutNameLabel.setText(this.shortcutName);
+
+		boolean hasDescription = this.shortcutDescription != null;
+		this.shortcutDescriptionLabel.setText(hasDescription ? this.shortcutDescription : ""); //$NON-NLS-1$
+		this.shortcutDescriptionLabel.setVisible(hasDescription);
+		((GridData) this.shortcutDescriptionLabel.getLayoutData()).exclude = !hasDescription;
+		this.shortcutLabel.getParent().layout(true);
+	}
+
 	private void hookPopupMenu(Control control) {
 		MenuManager menuManager = new MenuManager();
+		this.menuManagers.add(menuManager);
 
 		menuManager.add(new MoveAction());
 		menuManager.add(new Separator());
 		menuManager.add(new GoToPrefPageAction(getParentShell(), ShortcutPreferencePage.ID, ShortcutPreferencePage.ADDITIONAL_PAGES));
 
-		Menu menu = menuManager.createContextMenu(control);
+		Menu menu = this.resourceTracker.trackWidget(this, menuManager.createContextMenu(control));
 		control.setMenu(menu);
 		menu.addMenuListener(new MenuListener() {
 			@Override
@@ -307,7 +366,7 @@ public class ShortcutPopup extends Window {
 				return;
 			}
 
-			Tracker tracker = new Tracker(shell.getDisplay(), style);
+			Tracker tracker = ShortcutPopup.this.resourceTracker.trackWidget(ShortcutPopup.this, new Tracker(shell.getDisplay(), style));
 			tracker.setStippled(true);
 			Rectangle[] r = new Rectangle[] { shell.getBounds() };
 			tracker.setRectangles(r);
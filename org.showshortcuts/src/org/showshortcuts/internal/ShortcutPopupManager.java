@@ -0,0 +1,100 @@
+package org.showshortcuts.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.ui.IWindowListener;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchWindow;
+
+/**
+ * Keeps one lazily created {@link ShortcutPopup} per workbench window. Popups
+ * are only hidden after their time to close, so that showing the next
+ * shortcut in the same window reuses the existing widgets. They are disposed
+ * when their window closes. Must only be used on the UI thread.
+ *
+ * @author d031150
+ */
+public final class ShortcutPopupManager implements IWindowListener {
+
+	private final IWorkbench workbench;
+	private final Map<IWorkbenchWindow, ShortcutPopup> popups = new HashMap<IWorkbenchWindow, ShortcutPopup>();
+
+	public ShortcutPopupManager(IWorkbench workbench) {
+		this.workbench = workbench;
+		workbench.addWindowListener(this);
+	}
+
+	/**
+	 * Shows a shortcut in the popup of the given window
+	 *
+	 * @param window
+	 *            the window
+	 * @param shortcut
+	 *            the formatted shortcut
+	 * @param name
+	 *            the command name
+	 * @param description
+	 *            the command description or <code>null</code>
+	 * @param timeToClose
+	 *            the time in ms after which the popup is hidden
+	 */
+	public void show(IWorkbenchWindow window, String shortcut, String name, String description, int timeToClose) {
+		ShortcutPopup popup = this.popups.get(window);
+		if (popup == null) {
+			popup = new ShortcutPopup(window.getShell(), timeToClose);
+			this.popups.put(window, popup);
+		}
+		popup.setTimeToClose(timeToClose);
+		popup.setShortcut(shortcut, name, description);
+		popup.open();
+	}
+
+	/**
+	 * Returns the popup of the given window
+	 *
+	 * @param window
+	 *            the window
+	 * @return the popup or <code>null</code> if none was shown in the window
+	 *         so far
+	 */
+	public ShortcutPopup getPopup(IWorkbenchWindow window) {
+		return this.popups.get(window);
+	}
+
+	/**
+	 * Closes all popups and stops listening to window changes
+	 */
+	public void dispose() {
+		this.workbench.removeWindowListener(this);
+		List<ShortcutPopup> toClose = new ArrayList<ShortcutPopup>(this.popups.values());
+		this.popups.clear();
+		for (ShortcutPopup popup : toClose) {
+			popup.close();
+		}
+	}
+
+	@Override
+	public void windowClosed(IWorkbenchWindow window) {
+		ShortcutPopup popup = this.popups.remove(window);
+		if (popup != null) {
+			popup.close();
+		}
+	}
+
+	@Override
+	public void windowOpened(IWorkbenchWindow window) {
+		// popups are created lazily
+	}
+
+	@Override
+	public void windowActivated(IWorkbenchWindow window) {
+	}
+
+	@Override
+	public void windowDeactivated(IWorkbenchWindow window) {
+	}
+
+}
@@ -16,6 +16,15 @@ public class ShortcutPreferenceInitializer extends AbstractPreferenceInitializer
 
 	public static final String PREF_KEY_TIME_TO_CLOSE = "timeToClose"; //$NON-NLS-1$
 	public static final String PREF_KEY_SHOW_DESCRIPTION = "showCommandDescription"; //$NON-NLS-1$
+	public static final String PREF_KEY_FILTER_RULES = "filterRules"; //$NON-NLS-1$
+	public static final String PREF_KEY_RECORD_SESSION = "recordSession"; //$NON-NLS-1$
+	public static final String PREF_KEY_RENDER_FRAMES = "renderFrames"; //$NON-NLS-1$
+	public static final String PREF_KEY_PROFILER_ENABLED = "profileCommands"; //$NON-NLS-1$
+	public static final String PREF_KEY_FREEZE_THRESHOLD = "freezeThreshold"; //$NON-NLS-1$
+
+	public static final String PREF_KEY_KEYS_MODIFIERS_ENABLED = "enabled_keys_modifiers"; //$NON-NLS-1$
+	public static final String PREF_KEY_KEYS_CHORDS_ENABLED = "enabled_keys_chords"; //$NON-NLS-1$
+	public static final String PREF_KEY_KEYS_FUNCTION_KEYS_ENABLED = "enabled_keys_functionKeys"; //$NON-NLS-1$
 
 	static final String THEME_CATEGORY = Activator.PLUGIN_ID + ".theme"; //$NON-NLS-1$
 
@@ -28,6 +37,14 @@ public class ShortcutPreferenceInitializer extends AbstractPreferenceInitializer
 		store.setDefault(PREF_KEY_MOUSE_TRIGGER_ENABLED, false);
 		store.setDefault(PREF_KEY_TIME_TO_CLOSE, 3000);
 		store.setDefault(PREF_KEY_SHOW_DESCRIPTION, true);
+		store.setDefault(PREF_KEY_FILTER_RULES, ""); //$NON-NLS-1$
+		store.setDefault(PREF_KEY_RECORD_SESSION, false);
+		store.setDefault(PREF_KEY_RENDER_FRAMES, false);
+		store.setDefault(PREF_KEY_PROFILER_ENABLED, false);
+		store.setDefault(PREF_KEY_FREEZE_THRESHOLD, 0);
+		store.setDefault(PREF_KEY_KEYS_MODIFIERS_ENABLED, false);
+		store.setDefault(PREF_KEY_KEYS_CHORDS_ENABLED, false);
+		store.setDefault(PREF_KEY_KEYS_FUNCTION_KEYS_ENABLED, false);
 	}
 
 }
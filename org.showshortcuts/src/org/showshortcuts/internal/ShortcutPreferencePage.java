@@ -1,7 +1,15 @@
 package org.showshortcuts.internal;
 
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_FILTER_RULES;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_FREEZE_THRESHOLD;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_KEYS_CHORDS_ENABLED;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_KEYS_FUNCTION_KEYS_ENABLED;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_KEYS_MODIFIERS_ENABLED;
 import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_MOUSE_TRIGGER_ENABLED;
 import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_SHORTCUTS_ENABLED;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_PROFILER_ENABLED;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_RECORD_SESSION;
+import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_RENDER_FRAMES;
 import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_SHOW_DESCRIPTION;
 import static org.showshortcuts.internal.ShortcutPreferenceInitializer.PREF_KEY_TIME_TO_CLOSE;
 import static org.showshortcuts.internal.ShortcutPreferenceInitializer.THEME_CATEGORY;
@@ -75,6 +83,22 @@ public class ShortcutPreferencePage extends FieldEditorPreferencePage implements
 			}
 		}
 
+		{
+			Label keysWithoutCommand = new Label(editorParent, SWT.NONE);
+			keysWithoutCommand.setText(Messages.PrefPage_showKeysWithoutCommand_xfld);
+			GridDataFactory.fillDefaults().span(2, 1).applyTo(keysWithoutCommand);
+			String[][] keyPrefs = { //
+					{ PREF_KEY_KEYS_MODIFIERS_ENABLED, Messages.PrefPage_keys_modifiers_xckl }, //
+					{ PREF_KEY_KEYS_CHORDS_ENABLED, Messages.PrefPage_keys_chords_xckl }, //
+					{ PREF_KEY_KEYS_FUNCTION_KEYS_ENABLED, Messages.PrefPage_keys_functionKeys_xckl } };
+			for (String[] keyPref : keyPrefs) {
+				BooleanFieldEditor editor = new BooleanFieldEditor(keyPref[0], keyPref[1], editorParent);
+				GridDataFactory.fillDefaults().indent(convertHorizontalDLUsToPixels(10), SWT.DEFAULT)
+						.applyTo(editor.getDescriptionControl(editorParent));
+				addField(editor);
+			}
+		}
+
 		{
 			Label separator = new Label(editorParent, SWT.NONE);
 			GridDataFactory.fillDefaults().span(2, 1).applyTo(separator);
@@ -85,6 +109,35 @@ public class ShortcutPreferencePage extends FieldEditorPreferencePage implements
 					PREF_KEY_SHOW_DESCRIPTION, Messages.PrefPage_showCommandDescription_xckl, editorParent);
 			addField(editor);
 		}
+		{
+			BooleanFieldEditor editor = new BooleanFieldEditor(//
+					PREF_KEY_RECORD_SESSION, Messages.PrefPage_recordSession_xckl, editorParent);
+			editor.getDescriptionControl(editorParent).setToolTipText(Messages.PrefPage_recordSession_xtol);
+			addField(editor);
+		}
+		{
+			BooleanFieldEditor editor = new BooleanFieldEditor(//
+					PREF_KEY_RENDER_FRAMES, Messages.PrefPage_renderFrames_xckl, editorParent);
+			editor.getDescriptionControl(editorParent).setToolTipText(Messages.PrefPage_renderFrames_xtol);
+			addField(editor);
+		}
+		{
+			BooleanFieldEditor editor = new BooleanFieldEditor(//
+					PREF_KEY_PROFILER_ENABLED, Messages.PrefPage_profileCommands_xckl, editorParent);
+			editor.getDescriptionControl(editorParent).setToolTipText(Messages.PrefPage_profileCommands_xtol);
+			addField(editor);
+		}
+		{
+			IntegerFieldEditor editor = new IntegerFieldEditor(//
+					PREF_KEY_FREEZE_THRESHOLD, Messages.PrefPage_freezeThreshold_xfld, editorParent);
+			editor.setValidRange(0, 60 * 1000);
+			Text textControl = editor.getTextControl(editorParent);
+			textControl.setToolTipText(Messages.PrefPage_freezeThreshold_xtol);
+			editor.getLabelControl(editorParent).setToolTipText(textControl.getToolTipText());
+			addField(editor);
+			GridDataFactory.fillDefaults().align(SWT.BEGINNING, SWT.CENTER)
+					.hint(convertWidthInCharsToPixels(textControl.getTextLimit() + 1), -1).applyTo(textControl);
+		}
 		{
 			IntegerFieldEditor editor = new IntegerFieldEditor(//
 					PREF_KEY_TIME_TO_CLOSE, Messages.PrefPage_timeToClose_xfld, editorParent);
@@ -102,6 +155,19 @@ public class ShortcutPreferencePage extends FieldEditorPreferencePage implements
 			GridDataFactory.fillDefaults().span(2, 1).applyTo(separator);
 		}
 
+		{
+			FilterRulesFieldEditor editor = new FilterRulesFieldEditor(//
+					PREF_KEY_FILTER_RULES, Messages.PrefPage_filterRules_xfld, editorParent);
+			editor.getLabelControl(editorParent).setToolTipText(Messages.PrefPage_filterRules_xtol);
+			editor.getListControl(editorParent).setToolTipText(Messages.PrefPage_filterRules_xtol);
+			addField(editor);
+		}
+
+		{
+			Label separator = new Label(editorParent, SWT.NONE);
+			GridDataFactory.fillDefaults().span(2, 1).applyTo(separator);
+		}
+
 		{
 			PreferenceLinkArea linkArea = new PreferenceLinkArea(editorParent, SWT.NONE, PAGE_ID_COLORS_AND_FONTS,
 					Messages.PrefPage_configureVisuals_xlnk, //
@@ -0,0 +1,511 @@
+package org.showshortcuts.internal;
+
+import java.text.Collator;
+import java.text.DateFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.eclipse.core.commands.common.NotDefinedException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.bindings.keys.SWTKeySupport;
+import org.eclipse.jface.bindings.keys.formatting.IKeyFormatter;
+import org.eclipse.jface.layout.GridDataFactory;
+import org.eclipse.jface.layout.GridLayoutFactory;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.commands.ICommandService;
+import org.eclipse.ui.keys.IBindingService;
+import org.eclipse.ui.part.ViewPart;
+import org.showshortcuts.core.CommandSymbols;
+import org.showshortcuts.core.ShortcutStatistics;
+import org.showshortcuts.internal.l10n.Messages;
+
+/**
+ * Lists the shortcuts observed by the plug-in with their command, trigger,
+ * count, time of last use and current binding.
+ * <p>
+ * The table is {@link SWT#VIRTUAL virtual}, so only visible rows are
+ * materialized. Filtering and sorting run in a job on a
+ * {@link ShortcutStatistics.Snapshot snapshot} of the primitive columns and
+ * produce an <code>int</code> array of row indexes in display order. Names
+ * and key texts are resolved once per command and key, not per row, names
+ * on the UI thread before the job is scheduled.
+ *
+ * @author d031150
+ */
+public class ShortcutStatisticsView extends ViewPart {
+
+	static final String ID = Activator.PLUGIN_ID + ".shortcutStatisticsView"; //$NON-NLS-1$
+
+	private static final int REFRESH_INTERVAL = 2000;
+	private static final int FILTER_DELAY = 200;
+	private static final int CANCEL_CHECK_INTERVAL = 4096;
+
+	private static final int COLUMN_COMMAND = 0;
+	private static final int COLUMN_SHORTCUT = 1;
+	private static final int COLUMN_TRIGGER = 2;
+	private static final int COLUMN_COUNT = 3;
+	private static final int COLUMN_LAST_USED = 4;
+	private static final int COLUMN_BINDING = 5;
+
+	private Text filterText;
+	private Table table;
+	private IBindingService bindingService;
+	private final DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM);
+
+	// result of the last update job, UI thread only
+	private ShortcutStatistics.Snapshot snapshot;
+	private Labels labels;
+	private int[] order = new int[0];
+
+	private int sortColumn = COLUMN_COUNT;
+	private boolean sortDescending = true;
+	private UpdateJob updateJob;
+	private long seenModificationCount = -1;
+
+	private final Runnable refreshRunnable = new Runnable() {
+		@Override
+		public void run() {
+			if (ShortcutStatisticsView.this.table != null && !ShortcutStatisticsView.this.table.isDisposed()) {
+				refresh(false);
+				ShortcutStatisticsView.this.table.getDisplay().timerExec(REFRESH_INTERVAL, this);
+			}
+		}
+	};
+	private final Runnable filterRunnable = new Runnable() {
+		@Override
+		public void run() {
+			if (ShortcutStatisticsView.this.table != null && !ShortcutStatisticsView.this.table.isDisposed()) {
+				refresh(true);
+			}
+		}
+	};
+
+	@Override
+	public void createPartControl(Composite parent) {
+		this.bindingService = (IBindingService) getSite().getService(IBindingService.class);
+		GridLayoutFactory.fillDefaults().spacing(0, 2).applyTo(parent);
+
+		this.filterText = new Text(parent, SWT.SEARCH | SWT.ICON_SEARCH | SWT.ICON_CANCEL | SWT.BORDER);
+		this.filterText.setMessage(Messages.StatisticsView_filter_xfld);
+		GridDataFactory.fillDefaults().grab(true, false).applyTo(this.filterText);
+		this.filterText.addListener(SWT.Modify, new Listener() {
+			@Override
+			public void handleEvent(Event event) {
+				// reschedules the pending filter, if any
+				event.display.timerExec(FILTER_DELAY, ShortcutStatisticsView.this.filterRunnable);
+			}
+		});
+
+		this.table = new Table(parent, SWT.VIRTUAL | SWT.FULL_SELECTION | SWT.MULTI | SWT.H_SCROLL | SWT.V_SCROLL);
+		GridDataFactory.fillDefaults().grab(true, true).applyTo(this.table);
+		this.table.setHeaderVisible(true);
+		this.table.setLinesVisible(true);
+		createColumn(COLUMN_COMMAND, Messages.StatisticsView_command_xcol, 250, SWT.LEFT);
+		createColumn(COLUMN_SHORTCUT, Messages.StatisticsView_shortcut_xcol, 120, SWT.LEFT);
+		createColumn(COLUMN_TRIGGER, Messages.StatisticsView_trigger_xcol, 120, SWT.LEFT);
+		createColumn(COLUMN_COUNT, Messages.StatisticsView_count_xcol, 70, SWT.RIGHT);
+		createColumn(COLUMN_LAST_USED, Messages.StatisticsView_lastUsed_xcol, 140, SWT.LEFT);
+		createColumn(COLUMN_BINDING, Messages.StatisticsView_binding_xcol, 120, SWT.LEFT);
+		this.table.setSortColumn(this.table.getColumn(this.sortColumn));
+		this.table.setSortDirection(SWT.DOWN);
+		this.table.addListener(SWT.SetData, new Listener() {
+			@Override
+			public void handleEvent(Event event) {
+				materialize((TableItem) event.item, event.index);
+			}
+		});
+
+		getViewSite().getActionBars().getToolBarManager().add(new ResetAction());
+
+		refresh(true);
+		parent.getDisplay().timerExec(REFRESH_INTERVAL, this.refreshRunnable);
+	}
+
+	private void createColumn(final int index, String title, int width, int style) {
+		TableColumn column = new TableColumn(this.table, style);
+		column.setText(title);
+		column.setWidth(width);
+		if (index == COLUMN_BINDING) {
+			return; // only known on the UI thread
+		}
+		column.addListener(SWT.Selection, new Listener() {
+			@Override
+			public void handleEvent(Event event) {
+				if (ShortcutStatisticsView.this.sortColumn == index) {
+					ShortcutStatisticsView.this.sortDescending = !ShortcutStatisticsView.this.sortDescending;
+				} else {
+					ShortcutStatisticsView.this.sortColumn = index;
+					ShortcutStatisticsView.this.sortDescending = index == COLUMN_COUNT || index == COLUMN_LAST_USED;
+				}
+				ShortcutStatisticsView.this.table.setSortColumn((TableColumn) event.widget);
+				ShortcutStatisticsView.this.table.setSortDirection(ShortcutStatisticsView.this.sortDescending ? SWT.DOWN : SWT.UP);
+				refresh(true);
+			}
+		});
+	}
+
+	private void materialize(TableItem item, int index) {
+		int row = this.order[index];
+		ShortcutStatistics.Snapshot rows = this.snapshot;
+		int symbol = rows.symbols[row];
+		String commandId = symbol != CommandSymbols.NO_SYMBOL ? this.labels.getId(symbol) : null;
+		String binding = commandId != null ? this.bindingService.getBestActiveBindingFormattedFor(commandId) : null;
+
+		item.setText(COLUMN_COMMAND, this.labels.getName(symbol));
+		item.setText(COLUMN_SHORTCUT, this.labels.getShortcut(rows.accelerators[row]));
+		item.setText(COLUMN_TRIGGER, getTriggerLabel(rows.triggers[row]));
+		item.setText(COLUMN_COUNT, Long.toString(rows.counts[row]));
+		item.setText(COLUMN_LAST_USED, this.dateFormat.format(new Date(rows.lastUsed[row])));
+		item.setText(COLUMN_BINDING, binding != null ? binding : ""); //$NON-NLS-1$
+	}
+
+	private static String getTriggerLabel(byte trigger) {
+		switch (trigger) {
+		case ShortcutStatistics.TRIGGER_KEYBOARD:
+			return Messages.StatisticsView_triggerKeyboard_xmsg;
+		case ShortcutStatistics.TRIGGER_MOUSE:
+			return Messages.StatisticsView_triggerMouse_xmsg;
+		default:
+			return Messages.StatisticsView_triggerKey_xmsg;
+		}
+	}
+
+	/*
+	 * Starts a new update job, if forced or if events were recorded since the last one
+	 */
+	private void refresh(boolean force) {
+		ShortcutStatistics statistics = Activator.getDefault().getShortcutStatistics();
+		long modificationCount = statistics.getModificationCount();
+		if (!force && modificationCount == this.seenModificationCount) {
+			return;
+		}
+		this.seenModificationCount = modificationCount;
+		if (this.updateJob != null) {
+			this.updateJob.cancel();
+		}
+		this.updateJob = new UpdateJob(statistics.snapshot(), this.labels, this.filterText.getText(), this.sortColumn,
+				this.sortDescending);
+		this.updateJob.schedule();
+	}
+
+	private void apply(UpdateJob job) {
+		if (job != this.updateJob || this.table.isDisposed()) {
+			return; // superseded
+		}
+		this.updateJob = null;
+		this.snapshot = job.rows;
+		this.labels = job.labels;
+		this.order = job.result;
+		this.table.setItemCount(this.order.length);
+		this.table.clearAll();
+	}
+
+	@Override
+	public void setFocus() {
+		this.filterText.setFocus();
+	}
+
+	@Override
+	public void dispose() {
+		if (this.updateJob != null) {
+			this.updateJob.cancel();
+			this.updateJob = null;
+		}
+		if (this.table != null && !this.table.isDisposed()) {
+			this.table.getDisplay().timerExec(-1, this.refreshRunnable);
+			this.table.getDisplay().timerExec(-1, this.filterRunnable);
+		}
+		super.dispose();
+	}
+
+	/**
+	 * Sorts the indexes of rows by a key per row. The sort is stable and does
+	 * not box.
+	 */
+	static void sort(int[] order, long[] keys, boolean descending) {
+		int size = order.length;
+		int[] source = order;
+		int[] target = new int[size];
+		for (int width = 1; width < size; width *= 2) {
+			for (int low = 0; low < size; low += 2 * width) {
+				int mid = Math.min(low + width, size);
+				int high = Math.min(low + 2 * width, size);
+				int left = low;
+				int right = mid;
+				int out = low;
+				while (left < mid && right < high) {
+					long leftKey = keys[source[left]];
+					long rightKey = keys[source[right]];
+					boolean takeRight = descending ? rightKey > leftKey : rightKey < leftKey;
+					target[out++] = takeRight ? source[right++] : source[left++];
+				}
+				System.arraycopy(source, left, target, out, mid - left);
+				out += mid - left;
+				System.arraycopy(source, right, target, out, high - right);
+			}
+			int[] swap = source;
+			source = target;
+			target = swap;
+		}
+		if (source != order) {
+			System.arraycopy(source, 0, order, 0, size);
+		}
+	}
+
+	/**
+	 * Command names and formatted keys, resolved once per command and key.
+	 * Immutable once built, and reused by the next job. Names are resolved on
+	 * the UI thread, keys by the job.
+	 */
+	private static final class Labels {
+		private final ICommandService cmdService;
+		private final CommandSymbols symbols;
+		private final IKeyFormatter formatter = SWTKeySupport.getKeyFormatterForPlatform();
+		private String[] names = new String[0];
+		private final Map<Integer, String> shortcuts = new HashMap<Integer, String>();
+
+		Labels(ICommandService cmdService, CommandSymbols symbols) {
+			this.cmdService = cmdService;
+			this.symbols = symbols;
+		}
+
+		/*
+		 * copy to be extended by a job, so that the table keeps using the old one meanwhile
+		 */
+		Labels(Labels other) {
+			this.cmdService = other.cmdService;
+			this.symbols = other.symbols;
+			this.names = other.names;
+			this.shortcuts.putAll(other.shortcuts);
+		}
+
+		/*
+		 * UI thread only, as the command manager is not thread-safe
+		 */
+		void resolveNames(ShortcutStatistics.Snapshot rows) {
+			int maxSymbol = -1;
+			for (int row = 0; row < rows.size; row++) {
+				maxSymbol = Math.max(maxSymbol, rows.symbols[row]);
+			}
+			if (maxSymbol >= this.names.length) {
+				this.names = Arrays.copyOf(this.names, maxSymbol + 1);
+			} else {
+				this.names = this.names.clone();
+			}
+			for (int row = 0; row < rows.size; row++) {
+				int symbol = rows.symbols[row];
+				if (symbol != CommandSymbols.NO_SYMBOL && this.names[symbol] == null) {
+					this.names[symbol] = getCommandName(this.symbols.getId(symbol));
+				}
+			}
+		}
+
+		void resolveShortcuts(ShortcutStatistics.Snapshot rows) {
+			for (int row = 0; row < rows.size; row++) {
+				Integer accelerator = Integer.valueOf(rows.accelerators[row]);
+				if (!this.shortcuts.containsKey(accelerator)) {
+					this.shortcuts.put(accelerator, formatAccelerator(rows.accelerators[row]));
+				}
+			}
+		}
+
+		private String getCommandName(String commandId) {
+			try {
+				return this.cmdService.getCommand(commandId).getName();
+			} catch (NotDefinedException e) {
+				return commandId;
+			}
+		}
+
+		private String formatAccelerator(int accelerator) {
+			if ((accelerator & SWT.KEY_MASK) == 0) {
+				return ""; //$NON-NLS-1$
+			}
+			return this.formatter.format(SWTKeySupport.convertAcceleratorToKeyStroke(accelerator));
+		}
+
+		String getId(int symbol) {
+			return this.symbols.getId(symbol);
+		}
+
+		String getName(int symbol) {
+			return symbol != CommandSymbols.NO_SYMBOL ? this.names[symbol] : Messages.Popup_keyWithoutCommand_xmsg;
+		}
+
+		String getShortcut(int accelerator) {
+			return this.shortcuts.get(Integer.valueOf(accelerator));
+		}
+	}
+
+	private final class UpdateJob extends Job {
+
+		final ShortcutStatistics.Snapshot rows;
+		final Labels labels;
+		private final String filter;
+		private final int column;
+		private final boolean descending;
+		int[] result;
+
+		UpdateJob(ShortcutStatistics.Snapshot rows, Labels labels, String filter, int column, boolean descending) {
+			super(Messages.StatisticsView_updateJob_xmsg);
+			this.rows = rows;
+			this.labels = labels != null ? new Labels(labels) : new Labels(
+					(ICommandService) getSite().getService(ICommandService.class), Activator.getDefault().getCommandSymbols());
+			this.filter = filter.trim().toLowerCase(Locale.getDefault());
+			this.column = column;
+			this.descending = descending;
+			this.labels.resolveNames(rows);
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			this.labels.resolveShortcuts(this.rows);
+
+			int[] matches = new int[this.rows.size];
+			int count = 0;
+			for (int row = 0; row < this.rows.size; row++) {
+				if (row % CANCEL_CHECK_INTERVAL == 0 && monitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				if (matches(row)) {
+					matches[count++] = row;
+				}
+			}
+			int[] filtered = Arrays.copyOf(matches, count);
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			sort(filtered, getKeys(), this.descending);
+			this.result = filtered;
+
+			Display display = PlatformUI.getWorkbench().getDisplay();
+			if (!display.isDisposed()) {
+				display.asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						apply(UpdateJob.this);
+					}
+				});
+			}
+			return Status.OK_STATUS;
+		}
+
+		private boolean matches(int row) {
+			if (this.filter.length() == 0) {
+				return true;
+			}
+			Locale locale = Locale.getDefault();
+			int symbol = this.rows.symbols[row];
+			return this.labels.getName(symbol).toLowerCase(locale).contains(this.filter)
+					|| this.labels.getShortcut(this.rows.accelerators[row]).toLowerCase(locale).contains(this.filter)
+					|| symbol != CommandSymbols.NO_SYMBOL && this.labels.getId(symbol).toLowerCase(locale).contains(this.filter);
+		}
+
+		private long[] getKeys() {
+			long[] keys = new long[this.rows.size];
+			switch (this.column) {
+			case COLUMN_COUNT:
+				return this.rows.counts;
+			case COLUMN_LAST_USED:
+				return this.rows.lastUsed;
+			case COLUMN_TRIGGER:
+				for (int row = 0; row < keys.length; row++) {
+					keys[row] = this.rows.triggers[row];
+				}
+				return keys;
+			case COLUMN_SHORTCUT: {
+				final int[] accelerators = this.rows.accelerators;
+				Integer[] distinct = distinct(accelerators);
+				Arrays.sort(distinct, new TextComparator() {
+					@Override
+					String getText(Integer accelerator) {
+						return UpdateJob.this.labels.getShortcut(accelerator.intValue());
+					}
+				});
+				Map<Integer, Integer> ranks = ranks(distinct);
+				for (int row = 0; row < keys.length; row++) {
+					keys[row] = ranks.get(Integer.valueOf(accelerators[row])).intValue();
+				}
+				return keys;
+			}
+			default: {
+				final int[] symbols = this.rows.symbols;
+				Integer[] distinct = distinct(symbols);
+				Arrays.sort(distinct, new TextComparator() {
+					@Override
+					String getText(Integer symbol) {
+						return UpdateJob.this.labels.getName(symbol.intValue());
+					}
+				});
+				Map<Integer, Integer> ranks = ranks(distinct);
+				for (int row = 0; row < keys.length; row++) {
+					keys[row] = ranks.get(Integer.valueOf(symbols[row])).intValue();
+				}
+				return keys;
+			}
+			}
+		}
+
+		private Integer[] distinct(int[] values) {
+			Map<Integer, Integer> seen = new HashMap<Integer, Integer>();
+			for (int row = 0; row < this.rows.size; row++) {
+				Integer value = Integer.valueOf(values[row]);
+				seen.put(value, value);
+			}
+			return seen.keySet().toArray(new Integer[seen.size()]);
+		}
+
+		private Map<Integer, Integer> ranks(Integer[] sorted) {
+			Map<Integer, Integer> ranks = new HashMap<Integer, Integer>(sorted.length * 2);
+			for (int i = 0; i < sorted.length; i++) {
+				ranks.put(sorted[i], Integer.valueOf(i));
+			}
+			return ranks;
+		}
+	}
+
+	private abstract static class TextComparator implements Comparator<Integer> {
+		private final Collator collator = Collator.getInstance();
+
+		@Override
+		public int compare(Integer o1, Integer o2) {
+			return this.collator.compare(getText(o1), getText(o2));
+		}
+
+		abstract String getText(Integer value);
+	}
+
+	private final class ResetAction extends Action {
+		ResetAction() {
+			super(Messages.StatisticsView_reset_xtol, AS_PUSH_BUTTON);
+			setToolTipText(Messages.StatisticsView_reset_xtol);
+			setImageDescriptor(PlatformUI.getWorkbench().getSharedImages().getImageDescriptor(ISharedImages.IMG_ETOOL_CLEAR));
+		}
+
+		@Override
+		public void run() {
+			Activator.getDefault().getShortcutStatistics().clear();
+			refresh(true);
+		}
+	}
+
+}
@@ -0,0 +1,21 @@
+package org.showshortcuts.internal;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.ui.handlers.HandlerUtil;
+
+/**
+ * Opens the {@link WhichKeyOverlay} in the active workbench window
+ *
+ * @author d031150
+ */
+public class WhichKeyHandler extends AbstractHandler {
+
+	@Override
+	public Object execute(ExecutionEvent event) throws ExecutionException {
+		new WhichKeyOverlay(HandlerUtil.getActiveWorkbenchWindowChecked(event)).open();
+		return null;
+	}
+
+}
@@ -0,0 +1,242 @@
+package org.showshortcuts.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.commands.common.CommandException;
+import org.eclipse.jface.layout.GridDataFactory;
+import org.eclipse.jface.layout.GridLayoutFactory;
+import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.graphics.Resource;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.handlers.IHandlerService;
+import org.eclipse.ui.keys.IBindingService;
+import org.showshortcuts.core.CommandSymbols;
+import org.showshortcuts.internal.l10n.Messages;
+
+/**
+ * Overlay in the style of the {@link ShortcutPopup} that looks up commands by
+ * a part of their name or id while typing, and shows them with their key
+ * bindings. <code>Enter</code> executes the best match, <code>Esc</code> or
+ * clicking elsewhere closes the overlay.
+ * <p>
+ * The result rows are created once and only get new texts per keystroke.
+ * Matches are found by the {@link CommandIndex}, key bindings are only looked
+ * up for the few matches shown.
+ *
+ * @author d031150
+ */
+public class WhichKeyOverlay extends Window {
+
+	private static final int MAX_RESULTS = 8;
+	private static final int MARGIN_TOP = 80;
+	private static final int QUERY_WIDTH = 600;
+	private static final int INDEX_POLL_INTERVAL = 100;
+
+	private final IWorkbenchWindow window;
+	private final CommandIndexer indexer;
+	private final CommandSymbols symbols;
+	private final ResourceTracker resourceTracker;
+	private final List<Resource> resources = new ArrayList<Resource>(2);
+	private final int[] results = new int[MAX_RESULTS];
+	private int resultCount;
+	private Text queryText;
+	private Label statusLabel;
+	private final Label[] shortcutLabels = new Label[MAX_RESULTS];
+	private final Label[] nameLabels = new Label[MAX_RESULTS];
+	private final Runnable retryRunnable = new Runnable() {
+		@Override
+		public void run() {
+			if (WhichKeyOverlay.this.queryText != null && !WhichKeyOverlay.this.queryText.isDisposed()) {
+				updateResults();
+			}
+		}
+	};
+
+	public WhichKeyOverlay(IWorkbenchWindow window) {
+		super(window.getShell());
+		this.window = window;
+		this.indexer = Activator.getDefault().getCommandIndexer();
+		this.symbols = Activator.getDefault().getCommandSymbols();
+		this.resourceTracker = Activator.getDefault().getResourceTracker();
+		setShellStyle(SWT.NO_TRIM | SWT.ON_TOP);
+	}
+
+	@Override
+	protected void configureShell(Shell newShell) {
+		super.configureShell(newShell);
+		this.resourceTracker.trackWidget(this, newShell);
+		newShell.setBackground(JFaceResources.getColorRegistry().get(ShortcutPopup.POPUP_COLOR_BG));
+		newShell.setAlpha(220);
+		newShell.addListener(SWT.Deactivate, new Listener() {
+			@Override
+			public void handleEvent(Event event) {
+				close();
+			}
+		});
+	}
+
+	@Override
+	protected Control createContents(Composite parent) {
+		FontData[] defaultFontData = JFaceResources.getFont(ShortcutPopup.POPUP_FONT).getFontData();
+		Color foregroundColor = JFaceResources.getColorRegistry().get(ShortcutPopup.POPUP_COLOR_FG);
+		Font largeFont = createFont(defaultFontData[0], 2, SWT.NORMAL);
+		Font shortcutFont = createFont(defaultFontData[0], 2, SWT.BOLD);
+
+		Composite contents = new Composite(parent, SWT.NONE);
+		GridLayoutFactory.swtDefaults().numColumns(2).spacing(20, 5).applyTo(contents);
+		contents.setBackground(parent.getBackground());
+
+		this.queryText = new Text(contents, SWT.SINGLE);
+		this.queryText.setFont(largeFont);
+		this.queryText.setMessage(Messages.WhichKey_query_xfld);
+		GridDataFactory.fillDefaults().span(2, 1).grab(true, false).hint(QUERY_WIDTH, SWT.DEFAULT).applyTo(this.queryText);
+		this.queryText.addListener(SWT.Modify, new Listener() {
+			@Override
+			public void handleEvent(Event event) {
+				updateResults();
+			}
+		});
+		this.queryText.addListener(SWT.Traverse, new Listener() {
+			@Override
+			public void handleEvent(Event event) {
+				if (event.detail == SWT.TRAVERSE_RETURN) {
+					event.doit = false;
+					executeBestMatch();
+				} else if (event.detail == SWT.TRAVERSE_ESCAPE) {
+					event.doit = false;
+					close();
+				}
+			}
+		});
+
+		this.statusLabel = createLabel(contents, SWT.LEFT, foregroundColor, null);
+		GridDataFactory.fillDefaults().span(2, 1).applyTo(this.statusLabel);
+		for (int i = 0; i < MAX_RESULTS; i++) {
+			this.shortcutLabels[i] = createLabel(contents, SWT.RIGHT, foregroundColor, shortcutFont);
+			GridDataFactory.fillDefaults().align(SWT.END, SWT.CENTER).applyTo(this.shortcutLabels[i]);
+			this.nameLabels[i] = createLabel(contents, SWT.LEFT, foregroundColor, largeFont);
+			GridDataFactory.fillDefaults().grab(true, false).applyTo(this.nameLabels[i]);
+		}
+
+		updateResults();
+		return contents;
+	}
+
+	private Font createFont(FontData defaultFontData, int sizeFactor, int style) {
+		FontData fontData = new FontData(defaultFontData.getName(), defaultFontData.getHeight() * sizeFactor, style);
+		Font font = this.resourceTracker.trackResource(this, new Font(getShell().getDisplay(), fontData));
+		this.resources.add(font);
+		return font;
+	}
+
+	private static Label createLabel(Composite parent, int style, Color foreground, Font font) {
+		Label label = new Label(parent, style);
+		label.setBackground(parent.getBackground());
+		label.setForeground(foreground);
+		if (font != null) {
+			label.setFont(font);
+		}
+		return label;
+	}
+
+	private void updateResults() {
+		String query = this.queryText.getText();
+		CommandIndex index = this.indexer.getIndex();
+		String status = null;
+		if (index == null) {
+			this.resultCount = 0;
+			status = Messages.WhichKey_indexing_xmsg;
+			getShell().getDisplay().timerExec(INDEX_POLL_INTERVAL, this.retryRunnable);
+		} else {
+			this.resultCount = index.search(query, this.results);
+			if (this.resultCount == 0 && query.trim().length() > 0) {
+				status = Messages.WhichKey_noMatch_xmsg;
+			}
+		}
+
+		IBindingService bindingService = (IBindingService) this.window.getService(IBindingService.class);
+		for (int i = 0; i < MAX_RESULTS; i++) {
+			boolean visible = i < this.resultCount;
+			if (visible) {
+				String shortcut = bindingService.getBestActiveBindingFormattedFor(this.symbols.getId(this.results[i]));
+				this.shortcutLabels[i].setText(shortcut != null ? shortcut : ""); //$NON-NLS-1$
+				this.nameLabels[i].setText(index.getName(this.results[i]));
+			}
+			setVisible(this.shortcutLabels[i], visible);
+			setVisible(this.nameLabels[i], visible);
+		}
+		this.statusLabel.setText(status != null ? status : ""); //$NON-NLS-1$
+		setVisible(this.statusLabel, status != null);
+
+		Shell shell = getShell();
+		shell.layout(true, true);
+		Rectangle bounds = shell.getBounds();
+		Point size = shell.computeSize(SWT.DEFAULT, SWT.DEFAULT, true);
+		shell.setBounds(bounds.x, bounds.y, size.x, size.y);
+	}
+
+	private static void setVisible(Control control, boolean visible) {
+		control.setVisible(visible);
+		((GridData) control.getLayoutData()).exclude = !visible;
+	}
+
+	private void executeBestMatch() {
+		if (this.resultCount == 0) {
+			return;
+		}
+		final String commandId = this.symbols.getId(this.results[0]);
+		final IHandlerService handlerService = (IHandlerService) this.window.getService(IHandlerService.class);
+		close();
+		// after the overlay is gone, so that the command sees the workbench window as active
+		this.window.getShell().getDisplay().asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					handlerService.executeCommand(commandId, null);
+				} catch (CommandException e) {
+					Activator.log(e);
+				}
+			}
+		});
+	}
+
+	@Override
+	protected Point getInitialLocation(Point initialSize) {
+		Rectangle parentBounds = getParentShell().getBounds();
+		return new Point(parentBounds.x + (parentBounds.width - initialSize.x) / 2, parentBounds.y + MARGIN_TOP);
+	}
+
+	@Override
+	public boolean close() {
+		Shell shell = getShell();
+		if (shell != null && !shell.isDisposed()) {
+			shell.getDisplay().timerExec(-1, this.retryRunnable);
+		}
+		boolean closed = super.close();
+		for (Resource resource : this.resources) {
+			this.resourceTracker.dispose(resource);
+		}
+		this.resources.clear();
+		if (closed) {
+			this.resourceTracker.reportLeaks(this, "which key overlay close"); //$NON-NLS-1$
+		}
+		return closed;
+	}
+
+}
@@ -0,0 +1,70 @@
+package org.showshortcuts.internal;
+
+import org.eclipse.jface.bindings.TriggerSequence;
+import org.eclipse.jface.bindings.keys.KeySequence;
+import org.eclipse.jface.bindings.keys.KeyStroke;
+import org.eclipse.jface.bindings.keys.SWTKeySupport;
+import org.eclipse.jface.bindings.keys.formatting.IKeyFormatter;
+import org.eclipse.jface.bindings.keys.formatting.KeyFormatterFactory;
+import org.eclipse.swt.SWT;
+import org.eclipse.ui.keys.IBindingService;
+import org.showshortcuts.core.ShortcutFormatter;
+
+/**
+ * Formats accelerators with the key formatters of JFace, in the notation of
+ * the platform or the formal one, and looks up the bindings of mouse
+ * triggers in the binding service. Must be used on the UI thread.
+ *
+ * @author d031150
+ */
+public final class WorkbenchShortcutFormatter implements ShortcutFormatter {
+
+	private final IBindingService bindingService;
+
+	public WorkbenchShortcutFormatter(IBindingService bindingService) {
+		this.bindingService = bindingService;
+	}
+
+	@Override
+	public String format(int accelerator, boolean formal) {
+		if ((accelerator & SWT.KEY_MASK) == 0) {
+			return formatModifiers(formal ? KeyFormatterFactory.getFormalKeyFormatter() : SWTKeySupport.getKeyFormatterForPlatform(),
+					accelerator);
+		}
+		KeyStroke keyStroke = SWTKeySupport.convertAcceleratorToKeyStroke(accelerator);
+		return formal ? keyStroke.toString() : SWTKeySupport.getKeyFormatterForPlatform().format(keyStroke);
+	}
+
+	@Override
+	public String format(int[] accelerators, int count, boolean formal) {
+		KeyStroke[] strokes = new KeyStroke[count];
+		for (int i = 0; i < count; i++) {
+			strokes[i] = SWTKeySupport.convertAcceleratorToKeyStroke(accelerators[i]);
+		}
+		KeySequence sequence = KeySequence.getInstance(strokes);
+		return formal ? sequence.toString() : SWTKeySupport.getKeyFormatterForPlatform().format(sequence);
+	}
+
+	@Override
+	public String formatBinding(String commandId, boolean formal) {
+		if (!formal) {
+			return this.bindingService.getBestActiveBindingFormattedFor(commandId);
+		}
+		TriggerSequence binding = this.bindingService.getBestActiveBindingFor(commandId);
+		return binding != null ? binding.toString() : null;
+	}
+
+	private static String formatModifiers(IKeyFormatter formatter, int modifiers) {
+		StringBuilder result = new StringBuilder();
+		for (int modifier : new int[] { SWT.CTRL, SWT.ALT, SWT.SHIFT, SWT.COMMAND }) {
+			if ((modifiers & modifier) != 0) {
+				if (result.length() > 0) {
+					result.append(KeyStroke.KEY_DELIMITER);
+				}
+				result.append(formatter.format(modifier));
+			}
+		}
+		return result.toString();
+	}
+
+}
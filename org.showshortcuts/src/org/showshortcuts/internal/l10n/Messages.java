@@ -6,20 +6,80 @@ public class Messages extends NLS {
 
 	private static final String BUNDLE_NAME = "org.showshortcuts.internal.l10n.messages"; //$NON-NLS-1$
 
+	public static String CheatSheet_title_xtit;
+	public static String CheatSheet_category_xcol;
+	public static String CheatSheet_shortcut_xcol;
+	public static String CheatSheet_command_xcol;
+	public static String CheatSheet_description_xcol;
+	public static String CheatSheet_uncategorized_xtit;
+	public static String CheatSheetExporter_job_xmsg;
+	public static String CheatSheetExporter_failed_xmsg;
+
+	public static String Heatmap_layerAll_xmen;
+	public static String Heatmap_layerPlain_xmen;
+	public static String Heatmap_layerModifier_xmen;
+	public static String Heatmap_keyCount_xtol;
+	public static String Heatmap_reset_xtol;
+
+	public static String LatencyView_command_xcol;
+	public static String LatencyView_count_xcol;
+	public static String LatencyView_max_xcol;
+	public static String LatencyView_mean_xcol;
+	public static String LatencyView_p95_xcol;
+	public static String LatencyView_reset_xtol;
+
+	public static String Popup_keyWithoutCommand_xmsg;
+	public static String Popup_modifierKeys_xmsg;
 	public static String Popup_move_xmit;
+	public static String Popup_partialSequence_xmsg;
 
 	public static String Popup_showPreferences_xmit;
 
 	public static String PrefPage_configureKeys_xlnk;
 	public static String PrefPage_configureVisuals_xlnk;
+	public static String PrefPage_filterRules_add_xmsg;
+	public static String PrefPage_filterRules_add_xtit;
+	public static String PrefPage_filterRules_xfld;
+	public static String PrefPage_filterRules_xtol;
+	public static String PrefPage_freezeThreshold_xfld;
+	public static String PrefPage_freezeThreshold_xtol;
+	public static String PrefPage_profileCommands_xckl;
+	public static String PrefPage_profileCommands_xtol;
+	public static String PrefPage_recordSession_xckl;
+	public static String PrefPage_recordSession_xtol;
+	public static String PrefPage_renderFrames_xckl;
+	public static String PrefPage_renderFrames_xtol;
 	public static String PrefPage_shortcuts_enabled_xckl;
 
 	public static String PrefPage_showCommandDescription_xckl;
 
 	public static String PrefPage_showCommandsTriggeredBy_xfld;
 	public static String PrefPage_mouse_enabled_xckl;
+	public static String PrefPage_showKeysWithoutCommand_xfld;
+	public static String PrefPage_keys_modifiers_xckl;
+	public static String PrefPage_keys_chords_xckl;
+	public static String PrefPage_keys_functionKeys_xckl;
 	public static String PrefPage_timeToClose_xfld;
 	public static String PrefPage_timeToClose_xtol;
+	public static String SessionPlayer_job_xmsg;
+
+	public static String StatisticsView_command_xcol;
+	public static String StatisticsView_shortcut_xcol;
+	public static String StatisticsView_trigger_xcol;
+	public static String StatisticsView_count_xcol;
+	public static String StatisticsView_lastUsed_xcol;
+	public static String StatisticsView_binding_xcol;
+	public static String StatisticsView_filter_xfld;
+	public static String StatisticsView_reset_xtol;
+	public static String StatisticsView_triggerKeyboard_xmsg;
+	public static String StatisticsView_triggerMouse_xmsg;
+	public static String StatisticsView_triggerKey_xmsg;
+	public static String StatisticsView_updateJob_xmsg;
+
+	public static String WhichKey_query_xfld;
+	public static String WhichKey_indexing_xmsg;
+	public static String WhichKey_noMatch_xmsg;
+
 	static {
 		// initialize resource bundle
 		NLS.initializeMessages(BUNDLE_NAME, Messages.class);